@@ -0,0 +1,90 @@
+package com.lxq.learn.benchmarks;
+
+import com.lxq.learn.config.UserRealm;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserRealm 授权检查基准
+ * cached* 使用预先放入授权缓存的授权信息，按权限数量（小/大权限集）测量字符串权限解析与匹配的开销；
+ * uncached* 每次都走 doGetAuthorizationInfo（未启用授权缓存的默认配置）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorizationBenchmark {
+
+    private static final String USERNAME = "admin";
+
+    @Param({"5", "500"})
+    private int permissionCount;
+
+    private UserRealm cachedRealm;
+
+    private UserRealm uncachedRealm;
+
+    private PrincipalCollection principals;
+
+    private String grantedPermission;
+
+    private String deniedPermission;
+
+    @Setup
+    public void setUp() {
+        cachedRealm = RealmFixtures.userRealm(StubUserRepository.withUsers("123456", USERNAME));
+        cachedRealm.setCacheManager(new MemoryConstrainedCacheManager());
+        uncachedRealm = RealmFixtures.userRealm(StubUserRepository.withUsers("123456", USERNAME));
+
+        Set<String> permissions = new HashSet<>();
+        for (int i = 0; i < permissionCount; i++) {
+            permissions.add("user:read:" + i);
+        }
+        SimpleAuthorizationInfo authorizationInfo = new SimpleAuthorizationInfo(Set.of("admin", "user"));
+        authorizationInfo.setStringPermissions(permissions);
+        cachedRealm.getAuthorizationCache().put(USERNAME, authorizationInfo);
+
+        principals = new SimplePrincipalCollection(USERNAME, cachedRealm.getName());
+        grantedPermission = "user:read:" + (permissionCount - 1);
+        deniedPermission = "user:delete:0";
+    }
+
+    @Benchmark
+    public boolean cachedIsPermittedGranted() {
+        return cachedRealm.isPermitted(principals, grantedPermission);
+    }
+
+    @Benchmark
+    public boolean cachedIsPermittedDenied() {
+        return cachedRealm.isPermitted(principals, deniedPermission);
+    }
+
+    @Benchmark
+    public boolean cachedHasRole() {
+        return cachedRealm.hasRole(principals, "admin");
+    }
+
+    @Benchmark
+    public boolean uncachedIsPermitted() {
+        return uncachedRealm.isPermitted(principals, "user:write");
+    }
+}
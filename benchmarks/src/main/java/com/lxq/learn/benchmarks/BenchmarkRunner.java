@@ -0,0 +1,49 @@
+package com.lxq.learn.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 基准测试入口
+ * 在 JMH 命令行参数的基础上，默认把结果以 JSON 格式写入 jmh-results/&lt;版本号&gt;.json，
+ * 每个版本一个文件，版本之间可以直接对比（如 jmh.morethan.io 或 jq）
+ *
+ * 用法：
+ * <pre>
+ * mvn -pl benchmarks -am package -DskipTests
+ * java -jar benchmarks/target/benchmarks.jar                       # 运行全部基准
+ * java -jar benchmarks/target/benchmarks.jar PasswordHash -f 1     # 按名称过滤，JMH 参数照常使用
+ * java -jar benchmarks/target/benchmarks.jar -rff my-result.json   # 指定结果文件
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    private static final String RESULTS_DIR = "jmh-results";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        Path defaultResult = Paths.get(RESULTS_DIR, (version == null ? "dev" : version) + ".json");
+
+        String result = commandLine.getResult().orElse(defaultResult.toString());
+        Path parent = Paths.get(result).toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(result)
+                .build();
+        new Runner(options).run();
+    }
+}
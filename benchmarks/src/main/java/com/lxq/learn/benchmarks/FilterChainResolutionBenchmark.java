@@ -0,0 +1,66 @@
+package com.lxq.learn.benchmarks;
+
+import com.lxq.learn.config.ShiroBean;
+import jakarta.servlet.FilterChain;
+import org.apache.shiro.web.filter.mgt.DefaultFilterChainManager;
+import org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过滤器链解析基准
+ * 过滤器链规则来自 ShiroBean.shiroFilterChainDefinition，每个请求都要按顺序匹配一次
+ * 请求路径按规则中的写法构造（带 /shiro 前缀，context path 为空）：
+ * /shiro/login 命中第一条规则，/shiro/user-info 命中最后的通配规则，/actuator/health 不命中任何规则
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterChainResolutionBenchmark {
+
+    @Param({"/shiro/login", "/shiro/user-info", "/actuator/health"})
+    private String requestUri;
+
+    private PathMatchingFilterChainResolver resolver;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private FilterChain originalChain;
+
+    @Setup
+    public void setUp() {
+        DefaultFilterChainManager filterChainManager = new DefaultFilterChainManager();
+        new ShiroBean().shiroFilterChainDefinition().getFilterChainMap().forEach(filterChainManager::createChain);
+
+        resolver = new PathMatchingFilterChainResolver();
+        resolver.setFilterChainManager(filterChainManager);
+
+        request = new MockHttpServletRequest("GET", requestUri);
+        response = new MockHttpServletResponse();
+        originalChain = new MockFilterChain();
+    }
+
+    @Benchmark
+    public FilterChain resolve() {
+        return resolver.getChain(request, response, originalChain);
+    }
+}
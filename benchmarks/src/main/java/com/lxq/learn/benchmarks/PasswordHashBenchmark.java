@@ -0,0 +1,50 @@
+package com.lxq.learn.benchmarks;
+
+import com.lxq.learn.service.UserService;
+import com.lxq.learn.util.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 密码哈希基准：MD5 1024 次迭代
+ * 登录、注册、批量导入的主要 CPU 开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashBenchmark {
+
+    private static final String USERNAME = "admin";
+
+    private static final String PASSWORD = "123456";
+
+    private String storedPassword;
+
+    @Setup
+    public void setUp() {
+        storedPassword = UserService.hashPassword(PASSWORD, USERNAME);
+    }
+
+    @Benchmark
+    public String userServiceHashPassword() {
+        return UserService.hashPassword(PASSWORD, USERNAME);
+    }
+
+    @Benchmark
+    public boolean passwordUtilVerifyPassword() {
+        return PasswordUtil.verifyPassword(PASSWORD, USERNAME, storedPassword);
+    }
+}
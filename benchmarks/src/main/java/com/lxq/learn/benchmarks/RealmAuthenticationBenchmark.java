@@ -0,0 +1,63 @@
+package com.lxq.learn.benchmarks;
+
+import com.lxq.learn.config.UserRealm;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserRealm 认证基准（内存仓库，不含数据库耗时）
+ * 包含 doGetAuthenticationInfo、single-flight 查询和密码匹配器
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RealmAuthenticationBenchmark {
+
+    private static final String PASSWORD = "123456";
+
+    private UserRealm userRealm;
+
+    @Setup
+    public void setUp() {
+        userRealm = RealmFixtures.userRealm(StubUserRepository.withUsers(PASSWORD, "admin", "user", "test"));
+    }
+
+    @Benchmark
+    public AuthenticationInfo success() {
+        return userRealm.getAuthenticationInfo(new UsernamePasswordToken("admin", PASSWORD));
+    }
+
+    @Benchmark
+    public Object wrongPassword() {
+        try {
+            return userRealm.getAuthenticationInfo(new UsernamePasswordToken("admin", "wrong-password"));
+        } catch (AuthenticationException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object unknownUser() {
+        try {
+            return userRealm.getAuthenticationInfo(new UsernamePasswordToken("nobody", PASSWORD));
+        } catch (AuthenticationException e) {
+            return e;
+        }
+    }
+}
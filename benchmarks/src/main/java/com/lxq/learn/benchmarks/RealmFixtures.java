@@ -0,0 +1,52 @@
+package com.lxq.learn.benchmarks;
+
+import com.lxq.learn.admission.AdmissionController;
+import com.lxq.learn.config.ShiroBean;
+import com.lxq.learn.config.UserRealm;
+import com.lxq.learn.credential.CredentialSnapshot;
+import com.lxq.learn.metrics.LoginMetrics;
+import com.lxq.learn.repository.UserRepository;
+import com.lxq.learn.service.EnabledUserCounter;
+import com.lxq.learn.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 按 ShiroBean 的配置组装 UserRealm，依赖替换为内存实现
+ */
+final class RealmFixtures {
+
+    private RealmFixtures() {
+    }
+
+    /**
+     * 组装 UserRealm：密码匹配器与 Realm 配置来自 ShiroBean，UserService 使用内存仓库
+     *
+     * @param userRepository 用户仓库
+     * @return 已初始化的 UserRealm
+     */
+    static UserRealm userRealm(UserRepository userRepository) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LoginMetrics loginMetrics = new LoginMetrics(meterRegistry);
+        EnabledUserCounter enabledUserCounter = new EnabledUserCounter(userRepository, meterRegistry, false);
+        // 凭证快照保持关闭，用户查询直接走内存仓库
+        CredentialSnapshot credentialSnapshot = new CredentialSnapshot(
+                userRepository, meterRegistry, false, "credential-snapshot.bin", 1000, 200L, 86400000L, 1);
+        // 基准只测量 Realm 本身，准入控制保持关闭
+        AdmissionController admissionController = new AdmissionController(
+                meterRegistry, false, 20, 2, 200, 20, 2, 0.9, 500, 50, 250, 1);
+        // 基准中不修改用户，变更事件直接丢弃
+        UserService userService = new UserService(userRepository, enabledUserCounter, event -> {},
+                admissionController, meterRegistry, 2000L);
+
+        ShiroBean shiroBean = new ShiroBean();
+        UserRealm userRealm = shiroBean.userRealm(shiroBean.hashedCredentialsMatcher(loginMetrics));
+        // UserRealm 的依赖通过 @Autowired 字段注入
+        ReflectionTestUtils.setField(userRealm, "userService", userService);
+        ReflectionTestUtils.setField(userRealm, "loginMetrics", loginMetrics);
+        ReflectionTestUtils.setField(userRealm, "credentialSnapshot", credentialSnapshot);
+        userRealm.init();
+        return userRealm;
+    }
+}
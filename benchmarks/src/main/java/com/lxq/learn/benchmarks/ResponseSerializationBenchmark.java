@@ -0,0 +1,114 @@
+package com.lxq.learn.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lxq.learn.service.SessionIntrospectionService.SessionIntrospection;
+import com.lxq.learn.service.UserService.CredentialCheckResult;
+import com.lxq.learn.service.UserService.RegisterResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 控制器响应的 Jackson 序列化基准
+ * ObjectMapper 与 Spring Boot 默认配置一致（Jackson2ObjectMapperBuilder），响应结构与 ShiroController 返回的一致
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private Map<String, Object> loginResponse;
+
+    private Map<String, Object> userInfoResponse;
+
+    private Map<String, Object> registerResponse;
+
+    private Map<String, Object> bulkVerifyResponse;
+
+    private Map<String, Object> introspectResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        loginResponse = new HashMap<>();
+        loginResponse.put("success", true);
+        loginResponse.put("message", "登录成功");
+        loginResponse.put("username", "admin");
+
+        userInfoResponse = new HashMap<>();
+        userInfoResponse.put("success", true);
+        userInfoResponse.put("username", "admin");
+        userInfoResponse.put("authenticated", true);
+        userInfoResponse.put("hasAdminRole", true);
+        userInfoResponse.put("hasUserRole", true);
+
+        RegisterResult registerResult = new RegisterResult(true, "注册成功", "new_user");
+        registerResponse = new HashMap<>();
+        registerResponse.put("success", registerResult.isSuccess());
+        registerResponse.put("message", registerResult.getMessage());
+        registerResponse.put("username", registerResult.getUsername());
+
+        List<CredentialCheckResult> checks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            checks.add(new CredentialCheckResult("user" + i, i % 3 != 0));
+        }
+        bulkVerifyResponse = new HashMap<>();
+        bulkVerifyResponse.put("success", true);
+        bulkVerifyResponse.put("results", checks);
+
+        List<SessionIntrospection> sessions = new ArrayList<>();
+        long expiresAt = System.currentTimeMillis() + 1800000L;
+        for (int i = 0; i < 50; i++) {
+            sessions.add(new SessionIntrospection("session-" + i, true, "user" + i, List.of("user"), expiresAt));
+        }
+        introspectResponse = new HashMap<>();
+        introspectResponse.put("success", true);
+        introspectResponse.put("sessions", sessions);
+    }
+
+    @Benchmark
+    public byte[] login() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loginResponse);
+    }
+
+    @Benchmark
+    public byte[] userInfo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userInfoResponse);
+    }
+
+    @Benchmark
+    public byte[] register() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(registerResponse);
+    }
+
+    @Benchmark
+    public byte[] bulkVerify100() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bulkVerifyResponse);
+    }
+
+    @Benchmark
+    public byte[] introspect50() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(introspectResponse);
+    }
+}
@@ -0,0 +1,69 @@
+package com.lxq.learn.benchmarks;
+
+import com.lxq.learn.entity.User;
+import com.lxq.learn.repository.UserRepository;
+import com.lxq.learn.service.UserService;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存版 UserRepository
+ * 只实现认证路径用到的查询方法，其余方法抛出 UnsupportedOperationException，
+ * 用于在不启动数据库和 Spring 上下文的情况下测量 Realm 本身的开销
+ */
+final class StubUserRepository {
+
+    private StubUserRepository() {
+    }
+
+    /**
+     * 创建包含指定用户的仓库，密码统一为 password
+     *
+     * @param password  明文密码
+     * @param usernames 用户名（全部为启用状态）
+     * @return UserRepository 代理
+     */
+    static UserRepository withUsers(String password, String... usernames) {
+        Map<String, User> users = new ConcurrentHashMap<>();
+        for (String username : usernames) {
+            users.put(username, new User(username, UserService.hashPassword(password, username), true));
+        }
+        return create(users);
+    }
+
+    static UserRepository create(Map<String, User> users) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(users.get((String) args[0]));
+                    case "findByUsernameAndEnabled" -> Optional.ofNullable(users.get((String) args[0]))
+                            .filter(user -> Boolean.TRUE.equals(user.getEnabled()));
+                    case "findByUsernameIn" -> findAll(users, (Collection<?>) args[0]);
+                    case "countEnabledUsers" -> users.values().stream()
+                            .filter(user -> Boolean.TRUE.equals(user.getEnabled()))
+                            .count();
+                    case "toString" -> "StubUserRepository" + users.keySet();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<User> findAll(Map<String, User> users, Collection<?> usernames) {
+        List<User> found = new ArrayList<>(usernames.size());
+        for (Object username : usernames) {
+            User user = users.get(username);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,45 @@
+package com.lxq.learn.benchmarks.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GC 次数与耗时快照
+ * 压测客户端与应用运行在同一个 JVM 中，统计值包含客户端自身的垃圾回收
+ */
+final class GcSnapshot {
+
+    private final Map<String, long[]> collectors = new LinkedHashMap<>();
+
+    private GcSnapshot() {
+    }
+
+    static GcSnapshot take() {
+        GcSnapshot snapshot = new GcSnapshot();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            snapshot.collectors.put(collector.getName(),
+                    new long[]{collector.getCollectionCount(), collector.getCollectionTime()});
+        }
+        return snapshot;
+    }
+
+    /**
+     * 计算两次快照之间每个收集器的回收次数与耗时
+     *
+     * @param before 较早的快照
+     * @return 收集器名称 -> {count, timeMs}
+     */
+    Map<String, Map<String, Long>> since(GcSnapshot before) {
+        Map<String, Map<String, Long>> delta = new LinkedHashMap<>();
+        collectors.forEach((name, values) -> {
+            long[] previous = before.collectors.getOrDefault(name, new long[2]);
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("count", values[0] - previous[0]);
+            stats.put("timeMs", values[1] - previous[1]);
+            delta.put(name, stats);
+        });
+        return delta;
+    }
+}
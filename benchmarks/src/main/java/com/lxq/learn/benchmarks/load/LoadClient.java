@@ -0,0 +1,135 @@
+package com.lxq.learn.benchmarks.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测 HTTP 客户端
+ * 基于 JDK HttpClient 的异步请求，会话通过 JSESSIONID Cookie 传递（不使用 CookieManager，
+ * 每个虚拟用户显式携带自己的会话）
+ */
+final class LoadClient implements AutoCloseable {
+
+    private static final String SESSION_COOKIE = "JSESSIONID";
+
+    /**
+     * 压测用服务账号（见 load-service-accounts.ini），以 HTTP Basic 调用内部接口
+     */
+    private static final String SERVICE_AUTHORIZATION = "Basic " + Base64.getEncoder()
+            .encodeToString("svc-load:123456".getBytes(StandardCharsets.UTF_8));
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+
+    private final ExecutorService executor;
+
+    private final HttpClient httpClient;
+
+    LoadClient(String baseUrl, int threads) {
+        this.baseUrl = baseUrl;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-client-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    CompletableFuture<HttpResponse<String>> get(String path, String sessionCookie) {
+        HttpRequest.Builder builder = request(path, sessionCookie).GET();
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    CompletableFuture<HttpResponse<String>> postJson(String path, String json, String sessionCookie) {
+        HttpRequest.Builder builder = request(path, sessionCookie)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * 以服务账号身份（HTTP Basic，不创建会话）提交 JSON
+     */
+    CompletableFuture<HttpResponse<String>> postJsonAsService(String path, String json) {
+        HttpRequest.Builder builder = request(path, null)
+                .header("Authorization", SERVICE_AUTHORIZATION)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    CompletableFuture<HttpResponse<String>> login(String username, String password) {
+        return postJson("/login", "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}", null);
+    }
+
+    /**
+     * 同步登录，返回会话 Cookie（"JSESSIONID=..."）
+     *
+     * @throws IllegalStateException 登录失败
+     */
+    String loginForSession(String username, String password) {
+        HttpResponse<String> response = login(username, password).join();
+        String cookie = sessionCookie(response);
+        if (!isSuccess(response) || cookie == null) {
+            throw new IllegalStateException("预登录失败: " + username + " -> " + response.statusCode() + " " + response.body());
+        }
+        return cookie;
+    }
+
+    private HttpRequest.Builder request(String path, String sessionCookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (sessionCookie != null) {
+            builder.header("Cookie", sessionCookie);
+        }
+        return builder;
+    }
+
+    /**
+     * 从响应中取出会话 Cookie
+     *
+     * @return "JSESSIONID=..."，响应没有设置会话 Cookie 时返回 null
+     */
+    static String sessionCookie(HttpResponse<?> response) {
+        for (String setCookie : response.headers().allValues("set-cookie")) {
+            if (setCookie.startsWith(SESSION_COOKIE + "=")) {
+                int end = setCookie.indexOf(';');
+                return end < 0 ? setCookie : setCookie.substring(0, end);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 接口返回 200 且 success 为 true
+     */
+    static boolean isSuccess(HttpResponse<String> response) {
+        return response.statusCode() == 200 && response.body().contains("\"success\":true");
+    }
+
+    /**
+     * 接口返回 200 且 success 为 false（业务上的预期失败，如错误密码）
+     */
+    static boolean isRejected(HttpResponse<String> response) {
+        return response.statusCode() == 200 && response.body().contains("\"success\":false");
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,203 @@
+package com.lxq.learn.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lxq.learn.LearnApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内压测工具
+ * 在当前 JVM 中以 embedded（H2）+ prod 配置启动应用（随机端口），依次对每个场景预热、压测，
+ * 输出吞吐、p50/p99/p999 延迟和 GC 统计，结果同时写入 load-results/&lt;版本号&gt;.json
+ *
+ * 用法：
+ * <pre>
+ * mvn -pl benchmarks -am install -DskipTests
+ * mvn -pl benchmarks exec:exec@load                                  # 全部场景
+ * mvn -pl benchmarks exec:exec@load -Dload.jvmArgs="-Dload.scenarios=login-storm,browsing -Dload.duration=60"
+ * </pre>
+ *
+ * 改动前后对比：先在改动前的提交上运行并保存结果，再在改动后的提交上以 load.baseline 指向该结果运行，
+ * 输出各场景吞吐和 p99 的变化。对比吞吐时把到达速率设为超过服务能力的值（开放模型下未饱和时吞吐等于到达速率），如注册：
+ * <pre>
+ * git checkout &lt;改动前&gt; &amp;&amp; mvn -pl benchmarks -am install -DskipTests
+ * mvn -pl benchmarks exec:exec@load -Dload.jvmArgs="-Dload.scenarios=registration-burst -Dload.rate.registration-burst=3000 -Dload.results=/tmp/before.json"
+ * git checkout &lt;改动后&gt; &amp;&amp; mvn -pl benchmarks -am install -DskipTests
+ * mvn -pl benchmarks exec:exec@load -Dload.jvmArgs="-Dload.scenarios=registration-burst -Dload.rate.registration-burst=3000 -Dload.baseline=/tmp/before.json"
+ * </pre>
+ *
+ * 系统属性（通过 load.jvmArgs 传入压测进程）：
+ * - load.scenarios：场景列表，逗号分隔，默认全部（login-storm, session-churn, browsing, registration-burst, credential-stuffing,
+ *   bulk-verify, single-logins, session-introspect）
+ * - load.rate.&lt;场景&gt;：到达速率（次/秒），默认见各场景
+ * - load.duration / load.warmup：每个场景的压测 / 预热时长（秒），默认 30 / 10
+ * - load.max-in-flight：进行中请求上限，默认 2048
+ * - load.session-pool：browsing 场景预先登录的会话数，默认 64
+ * - load.verify-batch：bulk-verify 每次请求的凭证数 / single-logins 每次到达的登录数，默认 100
+ * - load.introspect-batch：session-introspect 每次请求内省的 Session 数，默认 1000
+ * - load.client-threads：HTTP 客户端线程数，默认 8
+ * - load.results：结果文件路径
+ * - load.l2-cache：是否开启 Hibernate 二级缓存和查询缓存，默认 true；
+ *   与 load.baseline 配合对比缓存开/关时的登录延迟，如先以 -Dload.l2-cache=false 运行 login-storm 并保存结果，再开启缓存对比
+ * - load.baseline：对比基线的结果文件路径（之前某次运行写出的 JSON），按场景名输出吞吐和 p99 的变化
+ */
+public class LoadHarness {
+
+    private static final String RESULTS_DIR = "load-results";
+
+    public static void main(String[] args) throws Exception {
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 10));
+        int maxInFlight = Integer.getInteger("load.max-in-flight", 2048);
+        int sessionPool = Integer.getInteger("load.session-pool", 64);
+        int verifyBatch = Integer.getInteger("load.verify-batch", 100);
+        int introspectBatch = Integer.getInteger("load.introspect-batch", 1000);
+        int clientThreads = Integer.getInteger("load.client-threads", 8);
+
+        List<Scenario> scenarios = selectScenarios(Scenarios.all(sessionPool, verifyBatch, introspectBatch), System.getProperty("load.scenarios"));
+
+        try (ConfigurableApplicationContext context = startApplication();
+             LoadClient client = new LoadClient(baseUrl(context), clientThreads)) {
+            OpenModelDriver driver = new OpenModelDriver(client, maxInFlight);
+
+            List<ScenarioResult> results = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                double rate = Double.parseDouble(
+                        System.getProperty("load.rate." + scenario.name(), String.valueOf(scenario.defaultRate())));
+                System.out.printf("场景 %s：%.0f 次/秒，预热 %ds，压测 %ds%n",
+                        scenario.name(), rate, warmup.getSeconds(), duration.getSeconds());
+
+                scenario.prepare(client);
+                driver.run(scenario, rate, warmup);
+                System.gc();
+                ScenarioResult result = driver.run(scenario, rate, duration);
+                results.add(result);
+                System.out.println(result.summary());
+            }
+
+            System.out.println();
+            System.out.println("=== 压测结果 ===");
+            results.forEach(result -> System.out.println(result.summary()));
+            writeResults(results);
+
+            String baseline = System.getProperty("load.baseline");
+            if (baseline != null && !baseline.isBlank()) {
+                printComparison(results, Paths.get(baseline));
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        boolean l2Cache = isL2CacheEnabled();
+        return new SpringApplicationBuilder(LearnApplication.class)
+                .profiles("embedded", "prod")
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + l2Cache,
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=" + l2Cache,
+                        // bulk-verify、session-introspect 场景以服务账号调用内部接口
+                        "app.security.realms.service-accounts.enabled=true",
+                        "app.security.realms.service-accounts.file=classpath:load-service-accounts.ini",
+                        // 使用应用自己的日志配置（异步输出），不使用 benchmarks 模块的 logback.xml
+                        "logging.config=classpath:logback-spring.xml")
+                .run();
+    }
+
+    private static boolean isL2CacheEnabled() {
+        return Boolean.parseBoolean(System.getProperty("load.l2-cache", "true"));
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext context) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+        return "http://localhost:" + port + contextPath;
+    }
+
+    private static List<Scenario> selectScenarios(List<Scenario> all, String selection) {
+        if (selection == null || selection.isBlank()) {
+            return all;
+        }
+        List<String> names = Arrays.asList(selection.split("\\s*,\\s*"));
+        List<Scenario> selected = new ArrayList<>();
+        for (String name : names) {
+            Scenario scenario = all.stream()
+                    .filter(candidate -> candidate.name().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("未知场景: " + name));
+            selected.add(scenario);
+        }
+        return selected;
+    }
+
+    /**
+     * 与基线结果按场景名对比吞吐和 p99 延迟
+     */
+    @SuppressWarnings("unchecked")
+    private static void printComparison(List<ScenarioResult> results, Path baselinePath) throws Exception {
+        Map<String, Object> baseline = new ObjectMapper().readValue(baselinePath.toFile(), Map.class);
+        Map<String, Map<String, Object>> baselineByName = new LinkedHashMap<>();
+        for (Map<String, Object> scenario : (List<Map<String, Object>>) baseline.get("scenarios")) {
+            baselineByName.put((String) scenario.get("scenario"), scenario);
+        }
+
+        System.out.println();
+        System.out.println("=== 与基线对比（" + baseline.get("version") + "，二级缓存 " + baseline.get("l2Cache")
+                + " -> " + isL2CacheEnabled() + "，" + baselinePath + "）===");
+        System.out.printf("%-20s %12s %12s %9s %10s %10s %9s%n",
+                "场景", "吞吐(前)", "吞吐(后)", "变化", "p99(前)", "p99(后)", "变化");
+        for (ScenarioResult result : results) {
+            Map<String, Object> current = result.toMap();
+            Map<String, Object> before = baselineByName.get((String) current.get("scenario"));
+            if (before == null) {
+                System.out.printf("%-20s 基线中没有该场景%n", current.get("scenario"));
+                continue;
+            }
+            double throughputBefore = ((Number) before.get("throughput")).doubleValue();
+            double throughputAfter = ((Number) current.get("throughput")).doubleValue();
+            double p99Before = ((Number) ((Map<String, Object>) before.get("latencyMs")).get("p99")).doubleValue();
+            double p99After = ((Number) ((Map<String, Object>) current.get("latencyMs")).get("p99")).doubleValue();
+            System.out.printf("%-20s %12.1f %12.1f %8.1f%% %10.1f %10.1f %8.1f%%%n",
+                    current.get("scenario"),
+                    throughputBefore, throughputAfter, change(throughputBefore, throughputAfter),
+                    p99Before, p99After, change(p99Before, p99After));
+        }
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+
+    private static void writeResults(List<ScenarioResult> results) throws Exception {
+        String version = LoadHarness.class.getPackage().getImplementationVersion();
+        Path path = Paths.get(System.getProperty("load.results",
+                Paths.get(RESULTS_DIR, (version == null ? "dev" : version) + ".json").toString()));
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("version", version == null ? "dev" : version);
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("l2Cache", isL2CacheEnabled());
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        results.forEach(result -> scenarios.add(result.toMap()));
+        report.put("scenarios", scenarios);
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        System.out.println("结果已写入 " + path.toAbsolutePath());
+    }
+}
@@ -0,0 +1,79 @@
+package com.lxq.learn.benchmarks.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型（open model）压测驱动
+ * 按固定到达速率发起请求，不等待上一个请求完成；延迟从计划发起时间开始计算，
+ * 服务端变慢时排队时间也计入延迟（避免协调遗漏 coordinated omission）
+ * 进行中的请求超过上限时本次到达记为丢弃，防止客户端无限堆积
+ */
+final class OpenModelDriver {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadClient client;
+
+    private final int maxInFlight;
+
+    OpenModelDriver(LoadClient client, int maxInFlight) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+    }
+
+    ScenarioResult run(Scenario scenario, double ratePerSecond, Duration duration) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long arrivals = duration.toNanos() / intervalNanos;
+
+        Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder dropped = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        GcSnapshot gcBefore = GcSnapshot.take();
+        long start = System.nanoTime();
+
+        for (long sequence = 0; sequence < arrivals; sequence++) {
+            long intendedStart = start + sequence * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                dropped.increment();
+                continue;
+            }
+
+            inFlight.incrementAndGet();
+            scenario.execute(client, sequence).whenComplete((ok, error) -> {
+                latency.recordValue(Math.min(System.nanoTime() - intendedStart, HIGHEST_TRACKABLE_NANOS));
+                if (error == null && Boolean.TRUE.equals(ok)) {
+                    succeeded.increment();
+                } else {
+                    failed.increment();
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new ScenarioResult(scenario.name(), ratePerSecond, arrivals,
+                succeeded.sum(), failed.sum() + inFlight.get(), dropped.sum(),
+                elapsed, latency, GcSnapshot.take().since(gcBefore));
+    }
+}
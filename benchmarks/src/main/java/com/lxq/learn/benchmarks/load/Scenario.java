@@ -0,0 +1,36 @@
+package com.lxq.learn.benchmarks.load;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 压测场景
+ * 每次到达（arrival）执行一次 execute，可以包含多个串行请求（如登录后登出），
+ * 延迟按整个 execute 计算
+ */
+interface Scenario {
+
+    /**
+     * 场景名称，用于命令行选择和结果输出
+     */
+    String name();
+
+    /**
+     * 默认到达速率（次/秒），可以通过 -Dload.rate.&lt;场景名称&gt; 覆盖
+     */
+    double defaultRate();
+
+    /**
+     * 压测开始前的准备工作（如预登录会话池），在预热之前执行一次
+     */
+    default void prepare(LoadClient client) {
+    }
+
+    /**
+     * 执行一次到达
+     *
+     * @param client   HTTP 客户端
+     * @param sequence 到达序号（从 0 开始，预热与正式压测各自计数）
+     * @return 结果是否符合预期
+     */
+    CompletableFuture<Boolean> execute(LoadClient client, long sequence);
+}
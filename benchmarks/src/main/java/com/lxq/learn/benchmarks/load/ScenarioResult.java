@@ -0,0 +1,86 @@
+package com.lxq.learn.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个场景的压测结果
+ */
+final class ScenarioResult {
+
+    private final String scenario;
+
+    private final double targetRate;
+
+    private final long arrivals;
+
+    private final long succeeded;
+
+    private final long failed;
+
+    private final long dropped;
+
+    private final long elapsedNanos;
+
+    private final Histogram latency;
+
+    private final Map<String, Map<String, Long>> gc;
+
+    ScenarioResult(String scenario, double targetRate, long arrivals, long succeeded, long failed, long dropped,
+                   long elapsedNanos, Histogram latency, Map<String, Map<String, Long>> gc) {
+        this.scenario = scenario;
+        this.targetRate = targetRate;
+        this.arrivals = arrivals;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.gc = gc;
+    }
+
+    double throughput() {
+        return elapsedNanos == 0 ? 0 : succeeded * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("p50", millis(latency.getValueAtPercentile(50)));
+        latencyMs.put("p99", millis(latency.getValueAtPercentile(99)));
+        latencyMs.put("p999", millis(latency.getValueAtPercentile(99.9)));
+        latencyMs.put("max", millis(latency.getMaxValue()));
+        latencyMs.put("mean", latency.getMean() / 1_000_000d);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario);
+        result.put("targetRate", targetRate);
+        result.put("arrivals", arrivals);
+        result.put("succeeded", succeeded);
+        result.put("failed", failed);
+        result.put("dropped", dropped);
+        result.put("elapsedMs", millis(elapsedNanos));
+        result.put("throughput", throughput());
+        result.put("latencyMs", latencyMs);
+        result.put("gc", gc);
+        return result;
+    }
+
+    String summary() {
+        long gcCount = gc.values().stream().mapToLong(stats -> stats.get("count")).sum();
+        long gcTime = gc.values().stream().mapToLong(stats -> stats.get("timeMs")).sum();
+        return String.format("%-20s 目标 %7.0f/s  实际 %8.1f/s  成功 %7d  失败 %5d  丢弃 %5d  "
+                        + "p50 %8.2fms  p99 %8.2fms  p999 %8.2fms  GC %4d 次 / %5d ms",
+                scenario, targetRate, throughput(), succeeded, failed, dropped,
+                millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)),
+                gcCount, gcTime);
+    }
+}
@@ -0,0 +1,294 @@
+package com.lxq.learn.benchmarks.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内置压测场景
+ * 登录类场景使用 DatabaseInitializer 初始化的测试账户（admin / user / test，密码 123456）
+ */
+final class Scenarios {
+
+    private static final String[] SEEDED_USERS = {"admin", "user", "test"};
+
+    private static final String PASSWORD = "123456";
+
+    private Scenarios() {
+    }
+
+    static List<Scenario> all(int sessionPoolSize, int verifyBatchSize, int introspectBatchSize) {
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new LoginStorm());
+        scenarios.add(new SessionChurn());
+        scenarios.add(new AuthenticatedBrowsing(sessionPoolSize));
+        scenarios.add(new RegistrationBurst());
+        scenarios.add(new CredentialStuffing());
+        scenarios.add(new BulkVerify(verifyBatchSize));
+        scenarios.add(new SingleLogins(verifyBatchSize));
+        scenarios.add(new SessionIntrospect(introspectBatchSize));
+        return scenarios;
+    }
+
+    private static String seededUser(long sequence) {
+        return SEEDED_USERS[(int) (sequence % SEEDED_USERS.length)];
+    }
+
+    /**
+     * 登录风暴：大量新客户端同时登录，每次登录都创建新会话
+     */
+    static class LoginStorm implements Scenario {
+
+        @Override
+        public String name() {
+            return "login-storm";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 200;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            return client.login(seededUser(sequence), PASSWORD).thenApply(LoadClient::isSuccess);
+        }
+    }
+
+    /**
+     * 会话更替：登录、访问一次受保护接口、登出
+     */
+    static class SessionChurn implements Scenario {
+
+        @Override
+        public String name() {
+            return "session-churn";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 100;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            return client.login(seededUser(sequence), PASSWORD).thenCompose(login -> {
+                String cookie = LoadClient.sessionCookie(login);
+                if (!LoadClient.isSuccess(login) || cookie == null) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                return client.get("/protected", cookie)
+                        .thenCompose(page -> client.postJson("/logout", "{}", cookie)
+                                .thenApply(logout -> LoadClient.isSuccess(page) && LoadClient.isSuccess(logout)));
+            });
+        }
+    }
+
+    /**
+     * 已登录用户的稳定浏览：交替访问 /protected 和 /user-info，会话来自预先登录的会话池
+     */
+    static class AuthenticatedBrowsing implements Scenario {
+
+        private final int sessionPoolSize;
+
+        private final List<String> sessions = new ArrayList<>();
+
+        AuthenticatedBrowsing(int sessionPoolSize) {
+            this.sessionPoolSize = sessionPoolSize;
+        }
+
+        @Override
+        public String name() {
+            return "browsing";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 1000;
+        }
+
+        @Override
+        public void prepare(LoadClient client) {
+            sessions.clear();
+            for (int i = 0; i < sessionPoolSize; i++) {
+                sessions.add(client.loginForSession(seededUser(i), PASSWORD));
+            }
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            String cookie = sessions.get((int) (sequence % sessions.size()));
+            String path = (sequence & 1) == 0 ? "/protected" : "/user-info";
+            return client.get(path, cookie).thenApply(LoadClient::isSuccess);
+        }
+    }
+
+    /**
+     * 注册潮：大量新用户注册，用户名在每次运行内唯一
+     */
+    static class RegistrationBurst implements Scenario {
+
+        private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        private final AtomicLong registered = new AtomicLong();
+
+        @Override
+        public String name() {
+            return "registration-burst";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 100;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            // 预热与正式压测的序号都从 0 开始，用户名使用独立的计数器
+            String username = "load-" + runId + "-" + registered.getAndIncrement();
+            String body = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                    + "\",\"confirmPassword\":\"" + PASSWORD + "\"}";
+            return client.postJson("/register", body, null).thenApply(LoadClient::isSuccess);
+        }
+    }
+
+    /**
+     * 撞库：随机的不存在用户名和随机密码，预期全部登录失败
+     */
+    static class CredentialStuffing implements Scenario {
+
+        @Override
+        public String name() {
+            return "credential-stuffing";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 500;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String username = "stuffing-" + Long.toHexString(random.nextLong());
+            String password = Long.toHexString(random.nextLong());
+            return client.login(username, password).thenApply(LoadClient::isRejected);
+        }
+    }
+
+    /**
+     * 批量凭证校验：服务账号每次提交 batchSize 组凭证（/credentials/verify），与 single-logins 对比
+     * 两个场景在相同到达速率下校验的凭证数相同，吞吐按 速率 × batchSize 组凭证/秒 换算
+     */
+    static class BulkVerify implements Scenario {
+
+        private final int batchSize;
+
+        BulkVerify(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public String name() {
+            return "bulk-verify";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 10;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            StringBuilder body = new StringBuilder("{\"credentials\":[");
+            for (int i = 0; i < batchSize; i++) {
+                if (i > 0) {
+                    body.append(',');
+                }
+                body.append("{\"username\":\"").append(seededUser(sequence * batchSize + i))
+                        .append("\",\"password\":\"").append(PASSWORD).append("\"}");
+            }
+            body.append("]}");
+            return client.postJsonAsService("/credentials/verify", body.toString())
+                    .thenApply(response -> LoadClient.isSuccess(response) && !response.body().contains("\"valid\":false"));
+        }
+    }
+
+    /**
+     * 逐个登录：每次到达并发发起 batchSize 次单独登录，作为 bulk-verify 的对照
+     */
+    static class SingleLogins implements Scenario {
+
+        private final int batchSize;
+
+        SingleLogins(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public String name() {
+            return "single-logins";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 10;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            List<CompletableFuture<Boolean>> logins = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                logins.add(client.login(seededUser(sequence * batchSize + i), PASSWORD).thenApply(LoadClient::isSuccess));
+            }
+            return CompletableFuture.allOf(logins.toArray(new CompletableFuture[0]))
+                    .thenApply(ignored -> logins.stream().allMatch(CompletableFuture::join));
+        }
+    }
+
+    /**
+     * Session 批量内省：网关边车以服务账号每次内省 batchSize 个 Session（/sessions/introspect），
+     * Session 来自预先登录的会话池，预期全部有效
+     */
+    static class SessionIntrospect implements Scenario {
+
+        private final int batchSize;
+
+        private String body;
+
+        SessionIntrospect(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public String name() {
+            return "session-introspect";
+        }
+
+        @Override
+        public double defaultRate() {
+            return 20;
+        }
+
+        @Override
+        public void prepare(LoadClient client) {
+            StringBuilder json = new StringBuilder("{\"sessionIds\":[");
+            for (int i = 0; i < batchSize; i++) {
+                String cookie = client.loginForSession(seededUser(i), PASSWORD);
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append('"').append(cookie.substring(cookie.indexOf('=') + 1)).append('"');
+            }
+            body = json.append("]}").toString();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> execute(LoadClient client, long sequence) {
+            return client.postJsonAsService("/sessions/introspect", body)
+                    .thenApply(response -> LoadClient.isSuccess(response) && !response.body().contains("\"valid\":false"));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# 冷启动基准：测量从进程启动到第一次登录成功的时间（time-to-first-successful-login）
+#
+# 用法：
+#   scripts/first-login-benchmark.sh [运行次数] -- <启动命令...>
+# 示例：
+#   # 普通 JVM 启动
+#   scripts/first-login-benchmark.sh 5 -- java -jar target/shiro-0.0.1-SNAPSHOT-exec.jar
+#   # fast-startup + AppCDS（先执行 mvn -pl shiro -Pcds package）
+#   cd target/cds && ../../scripts/first-login-benchmark.sh 5 -- \
+#       java -XX:SharedArchiveFile=application.jsa -jar shiro-0.0.1-SNAPSHOT-exec.jar --spring.profiles.active=fast-startup
+#   # 同一目录下不带归档再跑一次，两次结果之差即归档对首次登录耗时的影响
+#   cd target/cds && ../../scripts/first-login-benchmark.sh 5 -- \
+#       java -jar shiro-0.0.1-SNAPSHOT-exec.jar --spring.profiles.active=fast-startup
+#
+# 环境变量：
+#   LOGIN_URL      登录地址，默认 http://localhost:23333/shiro/login
+#   LOGIN_USER     用户名，默认 admin
+#   LOGIN_PASSWORD 密码，默认 123456
+#   TIMEOUT_SECONDS 单次最长等待时间，默认 120
+
+set -euo pipefail
+
+RUNS="${1:-3}"
+shift || true
+if [[ "${1:-}" == "--" ]]; then
+    shift
+fi
+if [[ $# -eq 0 ]]; then
+    echo "缺少启动命令" >&2
+    exit 1
+fi
+
+LOGIN_URL="${LOGIN_URL:-http://localhost:23333/shiro/login}"
+LOGIN_USER="${LOGIN_USER:-admin}"
+LOGIN_PASSWORD="${LOGIN_PASSWORD:-123456}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+
+now_ms() {
+    date +%s%3N
+}
+
+results=()
+for ((run = 1; run <= RUNS; run++)); do
+    start=$(now_ms)
+    "$@" > "first-login-run-${run}.log" 2>&1 &
+    pid=$!
+
+    elapsed=""
+    while (( $(now_ms) - start < TIMEOUT_SECONDS * 1000 )); do
+        if response=$(curl -s -X POST "$LOGIN_URL" \
+                -H 'Content-Type: application/json' \
+                -d "{\"username\":\"${LOGIN_USER}\",\"password\":\"${LOGIN_PASSWORD}\"}" 2>/dev/null) \
+                && [[ "$response" == *'"success":true'* ]]; then
+            elapsed=$(( $(now_ms) - start ))
+            break
+        fi
+        sleep 0.05
+    done
+
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+
+    if [[ -z "$elapsed" ]]; then
+        echo "第 ${run} 次：${TIMEOUT_SECONDS} 秒内未能登录成功，日志见 first-login-run-${run}.log" >&2
+        exit 1
+    fi
+    echo "第 ${run} 次：${elapsed} ms"
+    results+=("$elapsed")
+done
+
+printf '%s\n' "${results[@]}" | sort -n | awk '
+    { v[NR] = $1; sum += $1 }
+    END { printf "time-to-first-login: runs=%d min=%dms median=%dms max=%dms avg=%.0fms\n", NR, v[1], v[int((NR + 1) / 2)], v[NR], sum / NR }'
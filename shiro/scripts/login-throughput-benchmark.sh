@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# 登录吞吐基准：并发发送登录请求，统计每秒成功登录数
+# 用于对比同步控制台输出与异步采样日志：
+#   java -jar target/shiro-0.0.1-SNAPSHOT-exec.jar --spring.profiles.active=sync-logging # 同步输出
+#   java -jar target/shiro-0.0.1-SNAPSHOT-exec.jar                                       # 异步输出（默认）
+#   java -jar target/shiro-0.0.1-SNAPSHOT-exec.jar --spring.profiles.active=prod         # 异步输出 + 采样 + 关闭 SQL 跟踪
+# 然后执行：
+#   scripts/login-throughput-benchmark.sh [请求总数] [并发数]
+#
+# 环境变量：
+#   LOGIN_URL      登录地址，默认 http://localhost:23333/shiro/login
+#   LOGIN_USER     用户名，默认 admin
+#   LOGIN_PASSWORD 密码，默认 123456
+
+set -euo pipefail
+
+TOTAL="${1:-2000}"
+CONCURRENCY="${2:-16}"
+
+LOGIN_URL="${LOGIN_URL:-http://localhost:23333/shiro/login}"
+LOGIN_USER="${LOGIN_USER:-admin}"
+LOGIN_PASSWORD="${LOGIN_PASSWORD:-123456}"
+BODY="{\"username\":\"${LOGIN_USER}\",\"password\":\"${LOGIN_PASSWORD}\"}"
+
+export LOGIN_URL BODY
+
+start=$(date +%s%3N)
+successes=$(seq "$TOTAL" | xargs -P "$CONCURRENCY" -I{} sh -c \
+        'curl -s -X POST "$LOGIN_URL" -H "Content-Type: application/json" -d "$BODY"; echo' \
+        | grep -c '"success":true' || true)
+elapsed=$(( $(date +%s%3N) - start ))
+
+echo "请求总数: ${TOTAL}，并发数: ${CONCURRENCY}"
+echo "成功登录: ${successes}，耗时: ${elapsed} ms"
+if (( elapsed > 0 )); then
+    echo "吞吐: $(( successes * 1000 / elapsed )) 次/秒"
+fi
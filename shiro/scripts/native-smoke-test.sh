@@ -0,0 +1,87 @@
+#!/usr/bin/env bash
+# 原生镜像冒烟测试：对内嵌 H2 数据库执行注册、登录、访问受保护接口、登出，
+# 并与 JVM 版本对比启动时间和常驻内存（RSS）
+#
+# 前置条件：mvn -pl shiro -am -Pnative package（同时生成 target/shiro 与 target/shiro-*-exec.jar）
+# 用法：scripts/native-smoke-test.sh
+#
+# 环境变量：
+#   PORT            服务端口，默认 23333
+#   TIMEOUT_SECONDS 等待启动的最长时间，默认 120
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT="${PORT:-23333}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+BASE_URL="http://localhost:${PORT}/shiro"
+NATIVE_BINARY="target/shiro"
+JAR=$(ls target/shiro-*-exec.jar 2>/dev/null | head -n 1 || true)
+
+APP_ARGS=(--spring.profiles.active=embedded --server.port="${PORT}")
+
+now_ms() {
+    date +%s%3N
+}
+
+# 启动应用，等待登录成功，执行冒烟流程，输出 名称/启动耗时/首次登录耗时/RSS
+run_smoke() {
+    local name="$1"
+    shift
+    local log="target/smoke-${name}.log"
+    local cookies
+    cookies=$(mktemp)
+
+    local start
+    start=$(now_ms)
+    "$@" "${APP_ARGS[@]}" > "$log" 2>&1 &
+    local pid=$!
+    trap 'kill '"$pid"' 2>/dev/null || true' RETURN
+
+    # 等待测试数据初始化完成并能够登录
+    local first_login=""
+    while (( $(now_ms) - start < TIMEOUT_SECONDS * 1000 )); do
+        if curl -s -c "$cookies" -X POST "${BASE_URL}/login" \
+                -H 'Content-Type: application/json' \
+                -d '{"username":"admin","password":"123456"}' 2>/dev/null | grep -q '"success":true'; then
+            first_login=$(( $(now_ms) - start ))
+            break
+        fi
+        sleep 0.05
+    done
+    if [[ -z "$first_login" ]]; then
+        echo "[$name] ${TIMEOUT_SECONDS} 秒内未能登录成功，日志见 $log" >&2
+        return 1
+    fi
+
+    # 冒烟流程：受保护接口 -> 用户信息 -> 登出 -> 登出后再次访问
+    curl -s -b "$cookies" "${BASE_URL}/protected" | grep -q '"authenticated":true' \
+        || { echo "[$name] /protected 未返回已认证状态" >&2; return 1; }
+    curl -s -b "$cookies" "${BASE_URL}/user-info" | grep -q '"hasAdminRole":true' \
+        || { echo "[$name] /user-info 未返回管理员角色" >&2; return 1; }
+    curl -s -b "$cookies" -X POST "${BASE_URL}/logout" | grep -q '"success":true' \
+        || { echo "[$name] /logout 失败" >&2; return 1; }
+    curl -s -b "$cookies" "${BASE_URL}/user-info" | grep -q '"authenticated":false' \
+        || { echo "[$name] 登出后仍处于登录状态" >&2; return 1; }
+
+    local startup
+    startup=$(grep -o 'Started LearnApplication in [0-9.]* seconds' "$log" | grep -o '[0-9.]*' | head -n 1 || echo "?")
+    local rss_kb
+    rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+
+    printf '%-8s startup=%ss first-login=%dms rss=%dMB\n' "$name" "$startup" "$first_login" $(( rss_kb / 1024 ))
+    rm -f "$cookies"
+}
+
+if [[ ! -x "$NATIVE_BINARY" ]]; then
+    echo "未找到原生可执行文件 $NATIVE_BINARY，请先执行 mvn -pl shiro -am -Pnative package" >&2
+    exit 1
+fi
+
+echo "== 冒烟测试（内嵌 H2）=="
+run_smoke native "$NATIVE_BINARY"
+if [[ -n "$JAR" ]]; then
+    run_smoke jvm java -jar "$JAR"
+fi
+echo "冒烟测试通过"
@@ -0,0 +1,39 @@
+package com.lxq.learn.admission;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 准入控制切面
+ * 拦截 @AdmissionControlled 方法；优先级高于事务切面，被拒绝的调用不会开启事务或占用数据库连接
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AdmissionControlAspect {
+
+    private final AdmissionController admissionController;
+
+    @Autowired
+    public AdmissionControlAspect(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    @Around("@annotation(com.lxq.learn.admission.AdmissionControlled)")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!admissionController.tryAcquire()) {
+            throw admissionController.overloaded();
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            admissionController.release(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.lxq.learn.admission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记访问数据库的方法，调用前需要通过准入控制
+ * 并发数超过当前上限时直接抛出 ServiceOverloadedException，不再排队等待数据库连接
+ *
+ * @see AdmissionController
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdmissionControlled {
+}
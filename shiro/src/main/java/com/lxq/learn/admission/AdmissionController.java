@@ -0,0 +1,248 @@
+package com.lxq.learn.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 数据库访问的自适应准入控制（AIMD 并发上限）
+ * - 调用正常完成且并发接近上限时，上限加性增长（每次 +1/上限，约每轮 +1）
+ * - 单次调用超过延迟阈值，或连接池出现排队/平均等待时间超过阈值时，上限乘性收缩
+ * - 并发数达到上限的调用立即被拒绝，不再排队等待连接（原来最长要等 connection-timeout 30 秒）
+ * - 上限不超过连接池大小 × max-limit-per-connection：准入的调用最终都要拿连接，远超连接数只会在连接池中排队
+ * 连接池状态来自 HikariCP 的 Micrometer 指标，读写分离时统计所有连接池
+ *
+ * 指标：app.admission.limit、app.admission.in-flight、app.admission.rejected、app.admission.decreases
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final double minLimit;
+
+    private final double maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThresholdNanos;
+
+    private final long poolWaitThresholdNanos;
+
+    /**
+     * 两次收缩之间的最短间隔，避免同一批慢调用连续收缩多次
+     */
+    private final long decreaseCooldownNanos;
+
+    private final long retryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 当前并发上限（小数，增长时按 1/limit 累加），只在 synchronized 方法中修改
+     */
+    private double limit;
+
+    /**
+     * 当前并发上限的整数部分，供 tryAcquire 无锁读取
+     */
+    private volatile int admittedLimit;
+
+    /**
+     * 最近一次采样时连接池是否拥塞；拥塞期间不增长上限
+     */
+    private volatile boolean poolCongested;
+
+    private long lastDecreaseNanos;
+
+    private long lastAcquireCount;
+
+    private double lastAcquireTotalNanos;
+
+    private final Counter rejected;
+
+    private final Counter decreases;
+
+    @Autowired
+    public AdmissionController(MeterRegistry meterRegistry,
+                               @Value("${app.admission.enabled:true}") boolean enabled,
+                               @Value("${app.admission.initial-limit:20}") int initialLimit,
+                               @Value("${app.admission.min-limit:2}") int minLimit,
+                               @Value("${app.admission.max-limit:200}") int maxLimit,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                               @Value("${app.admission.max-limit-per-connection:2}") double maxLimitPerConnection,
+                               @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio,
+                               @Value("${app.admission.latency-threshold-ms:500}") long latencyThresholdMillis,
+                               @Value("${app.admission.pool-wait-threshold-ms:50}") long poolWaitThresholdMillis,
+                               @Value("${app.admission.sample-interval-ms:250}") long sampleIntervalMillis,
+                               @Value("${app.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = Math.max(minLimit, Math.min(maxLimit, Math.floor(poolSize * maxLimitPerConnection)));
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.poolWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(poolWaitThresholdMillis);
+        this.decreaseCooldownNanos = TimeUnit.MILLISECONDS.toNanos(sampleIntervalMillis);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = Math.max(minLimit, Math.min(this.maxLimit, initialLimit));
+        this.admittedLimit = (int) this.limit;
+        this.lastDecreaseNanos = System.nanoTime() - decreaseCooldownNanos;
+
+        Gauge.builder("app.admission.limit", this, controller -> controller.admittedLimit)
+                .description("数据库访问的当前并发上限")
+                .register(meterRegistry);
+        Gauge.builder("app.admission.in-flight", inFlight, AtomicInteger::get)
+                .description("正在执行的数据库访问数")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("app.admission.rejected")
+                .description("因超过并发上限被拒绝的调用数")
+                .register(meterRegistry);
+        this.decreases = Counter.builder("app.admission.decreases")
+                .description("并发上限收缩次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     *
+     * @return 是否准入；返回 true 时调用方必须在结束后调用 release
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= admittedLimit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 在准入控制下执行一段数据库访问
+     * 用于只需对方法中部分路径做准入控制的场景（如 single-flight 查询只有实际查询的线程占用名额）
+     *
+     * @param action 数据库访问
+     * @return 执行结果
+     * @throws ServiceOverloadedException 并发数超过当前上限
+     */
+    public <T> T execute(Supplier<T> action) {
+        if (!tryAcquire()) {
+            throw overloaded();
+        }
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 创建拒绝调用时抛出的异常
+     */
+    ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException("服务繁忙，请稍后重试", retryAfterSeconds);
+    }
+
+    /**
+     * 释放并发名额，并根据本次调用耗时调整上限
+     *
+     * @param latencyNanos 本次调用耗时（纳秒）
+     */
+    public void release(long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease("调用耗时 " + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + "ms");
+        } else if (!poolCongested && inFlightBefore * 2 >= admittedLimit) {
+            // 只有并发确实接近上限时才增长，避免空闲期间上限无限增长
+            increase();
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public int getLimit() {
+        return admittedLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 定时采样连接池状态：有线程在等待连接，或采样周期内平均获取连接时间超过阈值时收缩上限
+     */
+    @Scheduled(fixedDelayString = "${app.admission.sample-interval-ms:250}")
+    public void samplePool() {
+        if (!enabled) {
+            return;
+        }
+        double pending = 0;
+        for (Gauge gauge : meterRegistry.find("hikaricp.connections.pending").gauges()) {
+            pending += gauge.value();
+        }
+
+        long acquireCount = 0;
+        double acquireTotalNanos = 0;
+        for (Timer timer : meterRegistry.find("hikaricp.connections.acquire").timers()) {
+            acquireCount += timer.count();
+            acquireTotalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        long sampledCount = acquireCount - lastAcquireCount;
+        double averageWaitNanos = sampledCount > 0 ? (acquireTotalNanos - lastAcquireTotalNanos) / sampledCount : 0;
+        lastAcquireCount = acquireCount;
+        lastAcquireTotalNanos = acquireTotalNanos;
+
+        poolCongested = pending > 0 || averageWaitNanos > poolWaitThresholdNanos;
+        if (poolCongested) {
+            decrease(String.format("连接池排队 %.0f，平均等待 %.1fms", pending, averageWaitNanos / 1_000_000d));
+        }
+    }
+
+    private synchronized void increase() {
+        limit = Math.min(maxLimit, limit + 1.0d / limit);
+        admittedLimit = (int) limit;
+    }
+
+    private synchronized void decrease(String reason) {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < decreaseCooldownNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        admittedLimit = (int) limit;
+        decreases.increment();
+        if ((int) previous != admittedLimit) {
+            logger.warn("数据库访问并发上限收缩: {} -> {}（{}）", (int) previous, admittedLimit, reason);
+        }
+    }
+}
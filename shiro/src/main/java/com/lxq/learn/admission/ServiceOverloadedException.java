@@ -0,0 +1,22 @@
+package com.lxq.learn.admission;
+
+/**
+ * 服务过载异常
+ * 准入控制拒绝请求时抛出，由 GlobalExceptionHandler 转换为 503 响应并带上 Retry-After
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 建议客户端重试前等待的秒数
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,52 @@
+package com.lxq.learn.audit;
+
+/**
+ * 一次登录的审计记录
+ * 在请求线程中创建后放入环形队列，由后台写入线程批量写入数据库或降级文件
+ */
+public final class LoginAuditEvent {
+
+    private final long occurredAt;
+
+    private final String username;
+
+    private final String outcome;
+
+    private final String ip;
+
+    private final String userAgent;
+
+    public LoginAuditEvent(long occurredAt, String username, String outcome, String ip, String userAgent) {
+        this.occurredAt = occurredAt;
+        this.username = username;
+        this.outcome = outcome;
+        this.ip = ip;
+        this.userAgent = userAgent;
+    }
+
+    /**
+     * 发生时间（毫秒时间戳）
+     */
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * 登录结果，取值与认证日志一致（见 AuthEvents）
+     */
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+}
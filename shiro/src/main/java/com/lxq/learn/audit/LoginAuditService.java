@@ -0,0 +1,304 @@
+package com.lxq.learn.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 登录审计
+ * 请求线程只把审计记录放入无锁环形队列（不阻塞、不访问数据库），后台写入线程按批次执行 JDBC 批量 INSERT；
+ * 数据库跟不上时（队列积压超过阈值或写入失败）改为追加写入本地文件，积压回落到阈值一半以下后恢复写数据库；
+ * 写入失败后在 db-retry-backoff-ms 内不再尝试数据库，避免数据库不可用时每一批都先等待超时再降级；
+ * 队列满时丢弃新记录并计数
+ *
+ * 降级文件每行一条记录，字段以制表符分隔：发生时间（ISO-8601）、用户名、结果、IP、User-Agent
+ *
+ * 指标：app.audit.login.queue.depth、app.audit.login.queue.capacity、
+ * app.audit.login.events{result=written|spilled|dropped}、app.audit.login.flush（每批写入耗时）
+ */
+@Service
+public class LoginAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAuditService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO login_audit (occurred_at, username, outcome, ip, user_agent) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * 与 login_audit 表的列长度一致
+     */
+    private static final int MAX_USERNAME_LENGTH = 50;
+
+    private static final int MAX_IP_LENGTH = 64;
+
+    private static final int MAX_USER_AGENT_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    /**
+     * 队列积压超过该值时改为写降级文件
+     */
+    private final int spillThreshold;
+
+    private final Path fallbackFile;
+
+    /**
+     * 数据库写入失败后，多长时间内直接写降级文件
+     */
+    private final long dbRetryBackoffNanos;
+
+    private final MpscRingBuffer<LoginAuditEvent> queue;
+
+    private final Counter written;
+
+    private final Counter spilled;
+
+    private final Counter dropped;
+
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    /**
+     * 是否正在写降级文件（只由写入线程访问）
+     */
+    private boolean spilling;
+
+    /**
+     * 数据库写入失败后下次重试的时间（System.nanoTime），只由写入线程访问
+     */
+    private long dbRetryAtNanos;
+
+    /**
+     * 最近一次数据库写入是否失败（只由写入线程访问）
+     */
+    private boolean dbFailing;
+
+    @Autowired
+    public LoginAuditService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.audit.login.enabled:true}") boolean enabled,
+                             @Value("${app.audit.login.capacity:8192}") int capacity,
+                             @Value("${app.audit.login.batch-size:200}") int batchSize,
+                             @Value("${app.audit.login.flush-interval-ms:50}") long flushIntervalMillis,
+                             @Value("${app.audit.login.spill-threshold:0.75}") double spillThreshold,
+                             @Value("${app.audit.login.fallback-file:login-audit-fallback.log}") String fallbackFile,
+                             @Value("${app.audit.login.db-retry-backoff-ms:5000}") long dbRetryBackoffMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.queue = new MpscRingBuffer<>(capacity);
+        this.spillThreshold = (int) (queue.capacity() * spillThreshold);
+        this.fallbackFile = Paths.get(fallbackFile).toAbsolutePath();
+        this.dbRetryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(dbRetryBackoffMillis);
+
+        Gauge.builder("app.audit.login.queue.depth", queue, MpscRingBuffer::size)
+                .description("等待写入的登录审计记录数")
+                .register(meterRegistry);
+        Gauge.builder("app.audit.login.queue.capacity", queue, MpscRingBuffer::capacity)
+                .description("登录审计队列容量")
+                .register(meterRegistry);
+        this.written = eventCounter(meterRegistry, "written");
+        this.spilled = eventCounter(meterRegistry, "spilled");
+        this.dropped = eventCounter(meterRegistry, "dropped");
+        this.flushTimer = Timer.builder("app.audit.login.flush")
+                .description("每批登录审计记录的写入耗时")
+                .register(meterRegistry);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("app.audit.login.events")
+                .description("登录审计记录去向：written=写入数据库，spilled=写入降级文件，dropped=队列已满被丢弃")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "login-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 关闭时写完队列中剩余的记录
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 记录一次登录结果（不阻塞）
+     *
+     * @param username 用户名
+     * @param outcome  登录结果（见 AuthEvents）
+     * @param request  登录请求，用于取客户端 IP 和 User-Agent
+     */
+    public void record(String username, String outcome, HttpServletRequest request) {
+        if (!enabled) {
+            return;
+        }
+        LoginAuditEvent event = new LoginAuditEvent(System.currentTimeMillis(),
+                truncate(username, MAX_USERNAME_LENGTH),
+                outcome,
+                truncate(request.getRemoteAddr(), MAX_IP_LENGTH),
+                truncate(request.getHeader("User-Agent"), MAX_USER_AGENT_LENGTH));
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    /**
+     * 写入线程：每次最多取出一批，队列为空时休眠一个刷新间隔
+     */
+    private void runWriter() {
+        List<LoginAuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean stopping = !running;
+            queue.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                logger.error("写入登录审计记录失败，丢弃 {} 条", batch.size(), e);
+                dropped.increment(batch.size());
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 写入一批记录：积压过多、数据库写入失败或仍处于失败后的退避期时写降级文件
+     */
+    private void flush(List<LoginAuditEvent> batch) {
+        int depth = queue.size();
+        if (!spilling && depth > spillThreshold) {
+            spilling = true;
+            logger.warn("登录审计队列积压 {} 条，改为写入降级文件 {}", depth, fallbackFile);
+        } else if (spilling && depth < spillThreshold / 2) {
+            spilling = false;
+            logger.info("登录审计队列积压已回落到 {} 条，恢复写入数据库", depth);
+        }
+
+        if (!spilling && (!dbFailing || System.nanoTime() - dbRetryAtNanos >= 0)) {
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                            ps.setTimestamp(1, new Timestamp(event.getOccurredAt()));
+                            ps.setString(2, event.getUsername());
+                            ps.setString(3, event.getOutcome());
+                            ps.setString(4, event.getIp());
+                            ps.setString(5, event.getUserAgent());
+                        }));
+                written.increment(batch.size());
+                if (dbFailing) {
+                    dbFailing = false;
+                    logger.info("登录审计记录恢复写入数据库");
+                }
+                return;
+            } catch (RuntimeException e) {
+                dbFailing = true;
+                dbRetryAtNanos = System.nanoTime() + dbRetryBackoffNanos;
+                logger.warn("登录审计记录写入数据库失败，{}ms 内改为写入降级文件: {}",
+                        TimeUnit.NANOSECONDS.toMillis(dbRetryBackoffNanos), e.getMessage());
+            } finally {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        spill(batch);
+    }
+
+    /**
+     * 追加写入降级文件
+     */
+    private void spill(List<LoginAuditEvent> batch) {
+        try (BufferedWriter out = Files.newBufferedWriter(fallbackFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            for (LoginAuditEvent event : batch) {
+                out.write(Instant.ofEpochMilli(event.getOccurredAt()).toString());
+                out.write('\t');
+                out.write(field(event.getUsername()));
+                out.write('\t');
+                out.write(field(event.getOutcome()));
+                out.write('\t');
+                out.write(field(event.getIp()));
+                out.write('\t');
+                out.write(field(event.getUserAgent()));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("写入登录审计降级文件失败: " + fallbackFile, e);
+        }
+        spilled.increment(batch.size());
+    }
+
+    /**
+     * 去掉会破坏行格式的制表符和换行符
+     */
+    private static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,119 @@
+package com.lxq.learn.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 多生产者、单消费者的有界无锁环形队列
+ * 每个槽位带一个序号（Vyukov 有界队列）：生产者通过 CAS 推进写指针抢占槽位，写入元素后发布序号；
+ * 消费者按序号判断槽位是否已写入，读取后把序号推进一圈，槽位即可再次被生产者使用
+ *
+ * offer 不加锁、不阻塞，队列满时直接返回 false；drain 只能由一个线程调用
+ *
+ * @param <E> 元素类型
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个要写入的位置（生产者共享）
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个要读取的位置（只由消费者写入，volatile 供 size 读取）
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("容量不能小于 2: " + capacity);
+        }
+        this.capacity = capacity > (1 << 30) ? 1 << 30 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素（可由多个线程并发调用）
+     *
+     * @param element 元素
+     * @return 是否写入成功，队列已满时返回 false
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // 发布：消费者看到新序号时一定能看到元素
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // 槽位还没有被消费者释放，队列已满
+                return false;
+            }
+            // difference > 0：槽位已被其他生产者抢占，重新读取写指针
+        }
+    }
+
+    /**
+     * 取出元素交给消费函数（只能由一个线程调用）
+     *
+     * @param consumer    消费函数
+     * @param maxElements 最多取出的元素数
+     * @return 实际取出的元素数
+     */
+    public int drain(Consumer<? super E> consumer, int maxElements) {
+        long position = head;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // 槽位尚未写入（或生产者已抢占但还没有发布）
+                break;
+            }
+            E element = elements.get(index);
+            elements.lazySet(index, null);
+            sequences.set(index, position + capacity);
+            position++;
+            head = position;
+            consumer.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 当前队列中的元素数（近似值，用于监控）
+     *
+     * @return 元素数
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
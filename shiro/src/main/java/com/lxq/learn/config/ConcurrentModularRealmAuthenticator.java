@@ -0,0 +1,344 @@
+package com.lxq.learn.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.UnknownAccountException;
+import org.apache.shiro.authc.pam.ModularRealmAuthenticator;
+import org.apache.shiro.authc.pam.UnsupportedTokenException;
+import org.apache.shiro.lang.util.Destroyable;
+import org.apache.shiro.realm.Realm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行多 Realm 认证器
+ * 多个 Realm 支持同一个认证令牌时并行查询，第一个认证成功的 Realm 直接返回并取消其余 Realm，
+ * 登录耗时取决于最快成功的 Realm，而不是所有 Realm 耗时之和；每个 Realm 有独立的超时时间
+ *
+ * 全部失败时按以下优先级抛出异常（同一优先级取 Realm 配置顺序靠前的）：
+ * 密码错误/账户锁定等明确的认证失败 > 查询异常（如数据库不可用、准入控制拒绝）> 超时 > 账户不存在
+ *
+ * 只有一个 Realm 支持该令牌时在调用线程中直接认证，不切换线程
+ *
+ * 指标：
+ * - app.auth.realm.latency{realm}：各 Realm 认证耗时（超时、被取消的不计入）
+ * - app.auth.realm.result{realm,result=win|not-found|rejected|error|timeout|cancelled}：各 Realm 认证结果，
+ *   win 占比即该 Realm 的胜出率
+ */
+public class ConcurrentModularRealmAuthenticator extends ModularRealmAuthenticator implements Destroyable {
+
+    private static final int RANK_REJECTED = 0;
+    private static final int RANK_ERROR = 1;
+    private static final int RANK_TIMEOUT = 2;
+    private static final int RANK_NOT_FOUND = 3;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long defaultTimeoutNanos;
+
+    /**
+     * Realm 名称 -> 超时时间（毫秒），未配置的使用默认超时
+     */
+    private final Map<String, Long> realmTimeoutsMillis;
+
+    private volatile Map<Realm, RealmMeters> realmMeters = new IdentityHashMap<>();
+
+    /**
+     * @param meterRegistry        指标注册表
+     * @param threads              并行认证线程数，线程全部占用时在调用线程中执行
+     * @param defaultTimeoutMillis 默认的单个 Realm 认证超时（毫秒）
+     * @param realmTimeoutsMillis  按 Realm 名称配置的超时（毫秒）
+     */
+    public ConcurrentModularRealmAuthenticator(MeterRegistry meterRegistry, int threads,
+                                               long defaultTimeoutMillis, Map<String, Long> realmTimeoutsMillis) {
+        this.meterRegistry = meterRegistry;
+        this.defaultTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(defaultTimeoutMillis);
+        this.realmTimeoutsMillis = new HashMap<>(realmTimeoutsMillis);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, Math.max(1, threads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "realm-auth-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 设置 Realm 时预先创建各 Realm 的指标，认证过程中不再查找或注册指标
+     */
+    @Override
+    public void setRealms(Collection<Realm> realms) {
+        super.setRealms(realms);
+        Map<Realm, RealmMeters> meters = new IdentityHashMap<>();
+        for (Realm realm : realms) {
+            meters.put(realm, new RealmMeters(meterRegistry, realm.getName()));
+        }
+        this.realmMeters = meters;
+    }
+
+    @Override
+    protected AuthenticationInfo doSingleRealmAuthentication(Realm realm, AuthenticationToken token) {
+        RealmMeters meters = meters(realm);
+        long start = System.nanoTime();
+        try {
+            AuthenticationInfo info = super.doSingleRealmAuthentication(realm, token);
+            meters.record(System.nanoTime() - start, meters.wins);
+            return info;
+        } catch (RuntimeException e) {
+            if (!(e instanceof UnsupportedTokenException)) {
+                meters.record(System.nanoTime() - start, meters.counterFor(rank(e)));
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected AuthenticationInfo doMultiRealmAuthentication(Collection<Realm> realms, AuthenticationToken token) {
+        List<Realm> supporting = new ArrayList<>(realms.size());
+        for (Realm realm : realms) {
+            if (realm.supports(token)) {
+                supporting.add(realm);
+            }
+        }
+        if (supporting.size() <= 1) {
+            return doSingleRealmAuthentication(supporting.isEmpty() ? realms.iterator().next() : supporting.get(0), token);
+        }
+
+        long start = System.nanoTime();
+        CompletionService<AuthenticationInfo> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<AuthenticationInfo>, Attempt> pending = new HashMap<>();
+        RuntimeException[] failures = new RuntimeException[supporting.size()];
+        int[] ranks = new int[supporting.size()];
+        Arrays.fill(ranks, RANK_NOT_FOUND);
+
+        for (int i = 0; i < supporting.size(); i++) {
+            Realm realm = supporting.get(i);
+            Attempt attempt = new Attempt(i, realm, meters(realm), start + timeoutNanos(realm));
+            pending.put(completion.submit(() -> realm.getAuthenticationInfo(token)), attempt);
+        }
+
+        try {
+            while (!pending.isEmpty()) {
+                long wait = earliestDeadline(pending) - System.nanoTime();
+                Future<AuthenticationInfo> done = wait > 0 ? completion.poll(wait, TimeUnit.NANOSECONDS) : completion.poll();
+                if (done == null) {
+                    expire(pending, failures, ranks);
+                    continue;
+                }
+                Attempt attempt = pending.remove(done);
+                if (attempt == null) {
+                    // 已超时取消的任务
+                    continue;
+                }
+                long elapsed = System.nanoTime() - start;
+                try {
+                    AuthenticationInfo info = done.get();
+                    if (info != null) {
+                        attempt.meters.record(elapsed, attempt.meters.wins);
+                        return info;
+                    }
+                    attempt.meters.record(elapsed, attempt.meters.notFound);
+                } catch (ExecutionException e) {
+                    RuntimeException failure = asRuntimeException(e.getCause());
+                    int rank = rank(failure);
+                    attempt.meters.record(elapsed, attempt.meters.counterFor(rank));
+                    failures[attempt.index] = failure;
+                    ranks[attempt.index] = rank;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("认证被中断", e);
+        } finally {
+            // 已有 Realm 认证成功（或调用线程被中断）时取消其余 Realm
+            for (Map.Entry<Future<AuthenticationInfo>, Attempt> entry : pending.entrySet()) {
+                entry.getKey().cancel(true);
+                entry.getValue().meters.cancelled.increment();
+            }
+        }
+
+        throw selectFailure(failures, ranks);
+    }
+
+    /**
+     * 获取 Realm 的指标，setRealms 之外加入的 Realm 按名称从注册表中获取（已注册的指标会被复用）
+     */
+    private RealmMeters meters(Realm realm) {
+        RealmMeters meters = realmMeters.get(realm);
+        return meters != null ? meters : new RealmMeters(meterRegistry, realm.getName());
+    }
+
+    private long timeoutNanos(Realm realm) {
+        Long timeoutMillis = realmTimeoutsMillis.get(realm.getName());
+        return timeoutMillis == null ? defaultTimeoutNanos : TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    private static long earliestDeadline(Map<Future<AuthenticationInfo>, Attempt> pending) {
+        long earliest = Long.MAX_VALUE;
+        boolean first = true;
+        for (Attempt attempt : pending.values()) {
+            if (first || attempt.deadline - earliest < 0) {
+                earliest = attempt.deadline;
+                first = false;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * 取消已超时的 Realm
+     */
+    private static void expire(Map<Future<AuthenticationInfo>, Attempt> pending, RuntimeException[] failures, int[] ranks) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Future<AuthenticationInfo>, Attempt>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Future<AuthenticationInfo>, Attempt> entry = iterator.next();
+            Attempt attempt = entry.getValue();
+            if (now - attempt.deadline >= 0) {
+                entry.getKey().cancel(true);
+                iterator.remove();
+                attempt.meters.timeouts.increment();
+                failures[attempt.index] = new AuthenticationException("Realm [" + attempt.realm.getName() + "] 认证超时");
+                ranks[attempt.index] = RANK_TIMEOUT;
+            }
+        }
+    }
+
+    /**
+     * 所有 Realm 都未认证成功时，选出最能说明原因的异常
+     */
+    private static RuntimeException selectFailure(RuntimeException[] failures, int[] ranks) {
+        int selected = -1;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null && (selected < 0 || ranks[i] < ranks[selected])) {
+                selected = i;
+            }
+        }
+        if (selected < 0 || ranks[selected] == RANK_NOT_FOUND) {
+            return new UnknownAccountException("用户名或密码错误");
+        }
+        return failures[selected];
+    }
+
+    private static int rank(RuntimeException failure) {
+        if (failure instanceof UnknownAccountException) {
+            return RANK_NOT_FOUND;
+        }
+        return failure instanceof AuthenticationException ? RANK_REJECTED : RANK_ERROR;
+    }
+
+    private static RuntimeException asRuntimeException(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new AuthenticationException(cause);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 一次并行认证中某个 Realm 的调用
+     */
+    private static final class Attempt {
+
+        private final int index;
+
+        private final Realm realm;
+
+        private final RealmMeters meters;
+
+        private final long deadline;
+
+        private Attempt(int index, Realm realm, RealmMeters meters, long deadline) {
+            this.index = index;
+            this.realm = realm;
+            this.meters = meters;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 单个 Realm 的耗时与结果指标
+     */
+    private static final class RealmMeters {
+
+        private final Timer latency;
+
+        private final Counter wins;
+
+        private final Counter notFound;
+
+        private final Counter rejected;
+
+        private final Counter errors;
+
+        private final Counter timeouts;
+
+        private final Counter cancelled;
+
+        private RealmMeters(MeterRegistry meterRegistry, String realm) {
+            this.latency = Timer.builder("app.auth.realm.latency")
+                    .description("各 Realm 认证耗时")
+                    .tag("realm", realm)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.wins = result(meterRegistry, realm, "win");
+            this.notFound = result(meterRegistry, realm, "not-found");
+            this.rejected = result(meterRegistry, realm, "rejected");
+            this.errors = result(meterRegistry, realm, "error");
+            this.timeouts = result(meterRegistry, realm, "timeout");
+            this.cancelled = result(meterRegistry, realm, "cancelled");
+        }
+
+        private static Counter result(MeterRegistry meterRegistry, String realm, String result) {
+            return Counter.builder("app.auth.realm.result")
+                    .description("各 Realm 认证结果：win=认证成功并被采用，not-found=账户不存在，rejected=密码错误等，"
+                            + "error=查询异常，timeout=超时，cancelled=其他 Realm 已成功而被取消")
+                    .tag("realm", realm)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        private Counter counterFor(int rank) {
+            return switch (rank) {
+                case RANK_REJECTED -> rejected;
+                case RANK_ERROR -> errors;
+                case RANK_TIMEOUT -> timeouts;
+                default -> notFound;
+            };
+        }
+
+        private void record(long nanos, Counter result) {
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+            result.increment();
+        }
+    }
+}
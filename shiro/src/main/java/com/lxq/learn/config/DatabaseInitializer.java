@@ -6,8 +6,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 
 /**
  * 数据库初始化配置
@@ -23,6 +25,12 @@ public class DatabaseInitializer {
     @Value("${app.database.init-test-data:true}")
     private boolean initTestData;
 
+    /**
+     * 是否在应用就绪后异步初始化（不阻塞启动）
+     */
+    @Value("${app.database.init-async:false}")
+    private boolean initAsync;
+
     @Autowired
     public DatabaseInitializer(UserService userService) {
         this.userService = userService;
@@ -39,37 +47,64 @@ public class DatabaseInitializer {
                 return;
             }
 
-            logger.info("开始初始化测试用户数据...");
+            if (initAsync) {
+                logger.info("测试数据将在应用就绪后异步初始化");
+                return;
+            }
+
+            initTestUsers();
+        };
+    }
+
+    /**
+     * 应用就绪后异步初始化数据库数据
+     * 在独立线程中执行，不影响就绪探针和首个请求
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initDatabaseAsync() {
+        if (!initTestData || !initAsync) {
+            return;
+        }
+
+        Thread initThread = new Thread(this::initTestUsers, "database-initializer");
+        initThread.setDaemon(true);
+        initThread.start();
+    }
 
-            try {
-                // 创建管理员账户
-                createUserIfNotExists("admin", "123456", true);
+    /**
+     * 初始化测试用户数据
+     */
+    private void initTestUsers() {
+        logger.info("开始初始化测试用户数据...");
 
-                // 创建普通用户账户
-                createUserIfNotExists("user", "123456", true);
+        try {
+            // 创建管理员账户
+            createUserIfNotExists("admin", "123456", true);
 
-                // 创建测试账户
-                createUserIfNotExists("test", "123456", true);
+            // 创建普通用户账户
+            createUserIfNotExists("user", "123456", true);
 
-                // 创建禁用账户示例
-                createUserIfNotExists("disabled_user", "123456", false);
+            // 创建测试账户
+            createUserIfNotExists("test", "123456", true);
 
-                // 显示统计信息
-                long enabledUsers = userService.getEnabledUserCount();
-                logger.info("数据初始化完成，当前启用用户数量: {}", enabledUsers);
+            // 创建禁用账户示例
+            createUserIfNotExists("disabled_user", "123456", false);
 
-                // 显示测试账户信息
-                logger.info("=== 测试账户信息 ===");
-                logger.info("管理员账户: admin / 123456 (启用)");
-                logger.info("普通用户: user / 123456 (启用)");
-                logger.info("测试账户: test / 123456 (启用)");
-                logger.info("禁用账户: disabled_user / 123456 (禁用)");
-                logger.info("==================");
+            // 显示统计信息
+            long enabledUsers = userService.getEnabledUserCount();
+            logger.info("数据初始化完成，当前启用用户数量: {}", enabledUsers);
 
-            } catch (Exception e) {
-                logger.error("初始化测试数据时发生错误", e);
-            }
-        };
+            // 显示测试账户信息
+            logger.info("=== 测试账户信息 ===");
+            logger.info("管理员账户: admin / 123456 (启用)");
+            logger.info("普通用户: user / 123456 (启用)");
+            logger.info("测试账户: test / 123456 (启用)");
+            logger.info("禁用账户: disabled_user / 123456 (禁用)");
+            logger.info("==================");
+
+        } catch (Exception e) {
+            logger.error("初始化测试数据时发生错误", e);
+        }
     }
 
     /**
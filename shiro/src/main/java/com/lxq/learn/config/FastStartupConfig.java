@@ -0,0 +1,43 @@
+package com.lxq.learn.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 快速启动配置
+ * 在 fast-startup profile 下开启了全局延迟初始化，
+ * 但包含 @Scheduled 方法的 Bean（从库健康检查、启用用户数对账等）必须在启动时创建，
+ * 否则定时任务永远不会被注册
+ */
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    /**
+     * 排除包含 @Scheduled 方法的 Bean，使其不参与延迟初始化
+     *
+     * @return 延迟初始化排除过滤器
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> hasScheduledMethods(beanType);
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        if (beanType == null || !AnnotationUtils.isCandidateClass(beanType, Scheduled.class)) {
+            return false;
+        }
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType,
+                method -> found.set(true),
+                method -> !found.get() && AnnotationUtils.findAnnotation(method, Scheduled.class) != null);
+        return found.get();
+    }
+}
@@ -1,8 +1,10 @@
 package com.lxq.learn.config;
 
+import com.lxq.learn.admission.ServiceOverloadedException;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.UnauthenticatedException;
 import org.apache.shiro.authz.UnauthorizedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,7 +15,7 @@ import java.util.Map;
 
 /**
  * 全局异常处理器
- * 专门处理 Shiro 相关的认证和授权异常
+ * 专门处理 Shiro 相关的认证和授权异常，以及准入控制的过载异常
  */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -72,6 +74,27 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(result);
     }
 
+    /**
+     * 处理服务过载异常（准入控制拒绝）
+     * 数据库变慢时快速失败，返回 503 并通过 Retry-After 告知客户端多久之后重试
+     *
+     * @param e 服务过载异常
+     * @return 错误响应
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceOverloadedException(ServiceOverloadedException e) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("code", 503);
+        result.put("message", e.getMessage());
+        result.put("error", "Service Unavailable");
+        result.put("retryAfterSeconds", e.getRetryAfterSeconds());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(result);
+    }
+
     /**
      * 处理通用异常
      * 捕获其他未被特殊处理的异常
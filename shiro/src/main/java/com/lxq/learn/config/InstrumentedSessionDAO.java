@@ -0,0 +1,75 @@
+package com.lxq.learn.config;
+
+import com.lxq.learn.jfr.SessionDaoEvent;
+import com.lxq.learn.metrics.LoginMetrics;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+
+import java.io.Serializable;
+
+/**
+ * 带耗时统计的内存 SessionDAO
+ * 行为与 Shiro 默认的 MemorySessionDAO 相同，额外记录创建 Session 的耗时，
+ * 并为创建、读取、更新、删除操作发出 JFR 事件
+ */
+public class InstrumentedSessionDAO extends MemorySessionDAO {
+
+    private final LoginMetrics loginMetrics;
+
+    public InstrumentedSessionDAO(LoginMetrics loginMetrics) {
+        this.loginMetrics = loginMetrics;
+    }
+
+    @Override
+    protected Serializable doCreate(Session session) {
+        SessionDaoEvent event = new SessionDaoEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            return super.doCreate(session);
+        } finally {
+            loginMetrics.recordSessionCreate(System.nanoTime() - start);
+            commit(event, SessionDaoEvent.CREATE, true);
+        }
+    }
+
+    @Override
+    protected Session doReadSession(Serializable sessionId) {
+        SessionDaoEvent event = new SessionDaoEvent();
+        event.begin();
+        Session session = super.doReadSession(sessionId);
+        commit(event, SessionDaoEvent.READ, session != null);
+        return session;
+    }
+
+    @Override
+    public void update(Session session) throws UnknownSessionException {
+        SessionDaoEvent event = new SessionDaoEvent();
+        event.begin();
+        try {
+            super.update(session);
+        } finally {
+            commit(event, SessionDaoEvent.UPDATE, true);
+        }
+    }
+
+    @Override
+    public void delete(Session session) {
+        SessionDaoEvent event = new SessionDaoEvent();
+        event.begin();
+        try {
+            super.delete(session);
+        } finally {
+            commit(event, SessionDaoEvent.DELETE, true);
+        }
+    }
+
+    private static void commit(SessionDaoEvent event, String operation, boolean found) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.found = found;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.lxq.learn.config;
+
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.realm.jdbc.JdbcRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 旧用户表 Realm
+ * 认证沿用 JdbcRealm 的查询（authentication-query 可配置），旧表没有角色/权限表，
+ * 通过该 Realm 登录的用户统一授予配置的默认角色，其他 Realm 登录的用户不在这里查询授权信息
+ */
+public class LegacyJdbcRealm extends JdbcRealm {
+
+    private final Set<String> defaultRoles;
+
+    public LegacyJdbcRealm(Set<String> defaultRoles) {
+        this.defaultRoles = new HashSet<>(defaultRoles);
+    }
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+        if (principals.fromRealm(getName()).isEmpty()) {
+            return null;
+        }
+        return new SimpleAuthorizationInfo(defaultRoles);
+    }
+}
@@ -0,0 +1,157 @@
+package com.lxq.learn.config;
+
+import com.lxq.learn.controller.ShiroController;
+import com.lxq.learn.controller.UserAdminController;
+import com.lxq.learn.entity.User;
+import com.lxq.learn.logging.SamplingTurboFilter;
+import com.lxq.learn.repository.UserRepository;
+import com.lxq.learn.service.AccountStatusService;
+import com.lxq.learn.service.SessionIntrospectionService;
+import com.lxq.learn.service.UserImportService;
+import com.lxq.learn.service.UserService;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.lang.util.SimpleByteSource;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.web.filter.mgt.DefaultFilter;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * GraalVM 原生镜像运行时提示
+ * Shiro 的过滤器和 Realm、JPA 实体、Jackson 请求/响应对象在运行时依赖反射、资源加载和 Java 序列化，
+ * 原生编译时需要显式声明；在普通 JVM 上运行时这些提示不会产生任何影响
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.ShiroRuntimeHints.class)
+public class NativeHintsConfig {
+
+    /**
+     * 运行时提示注册器
+     */
+    static class ShiroRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            registerReflection(hints);
+            registerProxies(hints);
+            registerSerialization(hints);
+            registerResources(hints);
+        }
+
+        /**
+         * 反射提示：Realm、过滤器、实体和 Jackson 数据传输对象
+         */
+        private void registerReflection(RuntimeHints hints) {
+            MemberCategory[] beanLike = {
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS
+            };
+
+            // Realm 和密码匹配器（@Autowired 字段注入、AuthorizingRealm 的缓存名称推导）
+            hints.reflection().registerType(UserRealm.class, beanLike);
+            hints.reflection().registerType(HashedCredentialsMatcher.class, beanLike);
+            hints.reflection().registerType(TimedCredentialsMatcher.class, beanLike);
+
+            // logback-spring.xml 中通过类名配置的采样过滤器
+            hints.reflection().registerType(SamplingTurboFilter.class, beanLike);
+
+            // ShiroFilterFactoryBean 根据过滤器链定义反射实例化默认过滤器
+            for (DefaultFilter filter : DefaultFilter.values()) {
+                hints.reflection().registerType(filter.getFilterClass(), beanLike);
+            }
+
+            // JPA 实体
+            hints.reflection().registerType(User.class, beanLike);
+
+            // Jackson 请求/响应对象
+            Class<?>[] jacksonTypes = {
+                    ShiroController.LoginRequest.class,
+                    ShiroController.RegisterRequest.class,
+                    ShiroController.BulkVerifyRequest.class,
+                    ShiroController.IntrospectRequest.class,
+                    UserAdminController.BulkStatusRequest.class,
+                    AccountStatusService.BulkStatusResult.class,
+                    UserService.RegisterResult.class,
+                    UserService.CredentialCheckResult.class,
+                    SessionIntrospectionService.SessionIntrospection.class,
+                    UserImportService.ImportReport.class,
+                    UserRepository.UserSummary.class
+            };
+            for (Class<?> type : jacksonTypes) {
+                hints.reflection().registerType(type, beanLike);
+            }
+
+            // Caffeine JCache 提供者（二级缓存，通过类名反射加载）
+            hints.reflection().registerType(
+                    TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+
+        /**
+         * JDK 动态代理提示：Spring Data 接口投影
+         */
+        private void registerProxies(RuntimeHints hints) {
+            hints.proxies().registerJdkProxy(
+                    UserRepository.UserSummary.class, TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+            hints.proxies().registerJdkProxy(
+                    UserRepository.UserSummary.class, TargetAware.class, SpringProxy.class, Advised.class, DecoratingProxy.class);
+            hints.proxies().registerJdkProxy(
+                    UserRepository.UserCredentials.class, TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+            hints.proxies().registerJdkProxy(
+                    UserRepository.UserCredentials.class, TargetAware.class, SpringProxy.class, Advised.class, DecoratingProxy.class);
+        }
+
+        /**
+         * 序列化提示：Shiro Session 及其属性（SessionDAO、Session 复制时使用 Java 序列化）
+         */
+        private void registerSerialization(RuntimeHints hints) {
+            Class<?>[] serializableTypes = {
+                    SimpleSession.class,
+                    SimplePrincipalCollection.class,
+                    SimpleAuthenticationInfo.class,
+                    SimpleAuthorizationInfo.class,
+                    SimpleByteSource.class,
+                    Boolean.class,
+                    String.class,
+                    Date.class,
+                    HashMap.class,
+                    LinkedHashMap.class,
+                    HashSet.class,
+                    LinkedHashSet.class,
+                    ArrayList.class
+            };
+            for (Class<?> type : serializableTypes) {
+                hints.serialization().registerType(TypeReference.of(type));
+            }
+        }
+
+        /**
+         * 资源提示：SQL 脚本、Caffeine 缓存配置、日志配置
+         */
+        private void registerResources(RuntimeHints hints) {
+            hints.resources().registerPattern("db/*.sql");
+            hints.resources().registerPattern("application.conf");
+            hints.resources().registerPattern("reference.conf");
+            hints.resources().registerPattern("logback-spring.xml");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.lxq.learn.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * 读写分离路由数据源
+ * 只读事务（@Transactional(readOnly = true)）路由到从库，其余操作路由到主库；
+ * 从库不可用时自动回退到主库，并由定时健康检查在从库恢复后重新启用
+ *
+ * 注意：必须包装在 LazyConnectionDataSourceProxy 中使用，
+ * 否则事务开始时只读标记尚未设置，连接会被错误地路由到主库
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    /**
+     * 路由目标
+     */
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final DataSource primary;
+
+    private final DataSource replica;
+
+    /**
+     * 健康检查时 Connection.isValid 的超时时间（秒）
+     */
+    private final int validationTimeoutSeconds;
+
+    private volatile boolean replicaHealthy = true;
+
+    private final Counter primaryConnections;
+
+    private final Counter replicaConnections;
+
+    private final Counter replicaFallbacks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      int validationTimeoutSeconds, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+
+        this.primaryConnections = Counter.builder("app.datasource.connections")
+                .description("按路由目标统计的连接获取次数")
+                .tag("route", "primary")
+                .register(meterRegistry);
+        this.replicaConnections = Counter.builder("app.datasource.connections")
+                .description("按路由目标统计的连接获取次数")
+                .tag("route", "replica")
+                .register(meterRegistry);
+        this.replicaFallbacks = Counter.builder("app.datasource.replica.fallbacks")
+                .description("只读请求因从库不可用而回退到主库的次数")
+                .register(meterRegistry);
+        Gauge.builder("app.datasource.replica.healthy", this, ds -> ds.replicaHealthy ? 1 : 0)
+                .description("从库是否健康（1=健康，0=不可用）")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaHealthy && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Route.REPLICA) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                markReplicaUnhealthy(e);
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (determineCurrentLookupKey() == Route.REPLICA) {
+            try {
+                Connection connection = replica.getConnection(username, password);
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                markReplicaUnhealthy(e);
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 定时检查从库健康状态
+     * 从库恢复后重新启用读路由
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-interval:5000}")
+    public void checkReplicaHealth() {
+        boolean healthy;
+        try (Connection connection = replica.getConnection()) {
+            healthy = connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        if (healthy != replicaHealthy) {
+            replicaHealthy = healthy;
+            if (healthy) {
+                logger.info("从库已恢复，只读事务重新路由到从库");
+            } else {
+                logger.warn("从库健康检查失败，只读事务暂时路由到主库");
+            }
+        }
+    }
+
+    /**
+     * 从库是否健康
+     *
+     * @return 是否健康
+     */
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+    private void markReplicaUnhealthy(SQLException e) {
+        replicaFallbacks.increment();
+        if (replicaHealthy) {
+            replicaHealthy = false;
+            logger.warn("获取从库连接失败，只读事务暂时路由到主库: {}", e.getMessage());
+        }
+    }
+}
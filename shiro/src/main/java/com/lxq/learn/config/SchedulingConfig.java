@@ -0,0 +1,14 @@
+package com.lxq.learn.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置
+ * 启用 @Scheduled，用于数据源健康检查等后台任务
+ * 线程池大小见 spring.task.scheduling.pool.size：默认的单线程调度器会让一个阻塞在数据库上的任务拖住所有其他任务
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
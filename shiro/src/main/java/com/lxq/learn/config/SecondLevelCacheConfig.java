@@ -0,0 +1,41 @@
+package com.lxq.learn.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * 二级缓存配置
+ * JCache 的默认 CacheManager 按（URI, ClassLoader）在整个 JVM 内共享，同一 JVM 中的多个应用上下文
+ * （集成测试、同进程启动的多个节点）会读到彼此缓存的实体和查询结果。
+ * 每个上下文创建自己的 CacheManager 交给 Hibernate，区域配置仍读取 application.conf
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * 当前上下文独占的 CacheManager，随上下文关闭
+     *
+     * @return CacheManager 实例
+     */
+    @Bean
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // URI 不带协议时 Caffeine 按默认方式加载 application.conf
+        URI uri = URI.create("hibernate-" + UUID.randomUUID());
+        return provider.getCacheManager(uri, provider.getDefaultClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
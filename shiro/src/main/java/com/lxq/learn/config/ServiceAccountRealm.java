@@ -0,0 +1,32 @@
+package com.lxq.learn.config;
+
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.realm.text.IniRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * 服务账号 Realm
+ * 账号与角色来自本地 INI 文件；只为本 Realm 认证的身份提供授权信息。
+ * IniRealm 默认按主身份查找账号，其他 Realm 认证的同名用户（如通过 /register 注册的同名账号）
+ * 会因此获得服务账号的角色，这里与 LegacyJdbcRealm 一样先按 Realm 名称过滤
+ */
+public class ServiceAccountRealm extends IniRealm {
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+        if (principals.fromRealm(getName()).isEmpty()) {
+            return null;
+        }
+        return super.doGetAuthorizationInfo(principals);
+    }
+
+    /**
+     * 是否存在指定用户名的服务账号
+     *
+     * @param username 用户名
+     * @return 是否为服务账号
+     */
+    public boolean isServiceAccount(String username) {
+        return username != null && accountExists(username);
+    }
+}
@@ -1,18 +1,35 @@
 package com.lxq.learn.config;
 
+import com.lxq.learn.metrics.LoginMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
 import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.Realm;
 import org.apache.shiro.spring.web.config.DefaultShiroFilterChainDefinition;
 import org.apache.shiro.spring.web.config.ShiroFilterChainDefinition;
 import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
 import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Shiro 配置类
  * 负责配置 Shiro 的核心组件：SecurityManager、Realm、过滤器链等
@@ -21,15 +38,54 @@ import org.springframework.context.annotation.Primary;
 @Configuration
 public class ShiroBean {
 
+    private static final Logger logger = LoggerFactory.getLogger(ShiroBean.class);
+
+    /**
+     * Realm 名称（用于指标标签和按 Realm 配置超时）
+     */
+    public static final String USER_REALM_NAME = "users";
+
+    public static final String LEGACY_REALM_NAME = "legacy";
+
+    public static final String SERVICE_ACCOUNT_REALM_NAME = "service-accounts";
+
+    /**
+     * 是否启用 Realm 授权缓存
+     */
+    @Value("${app.security.authorization-cache.enabled:false}")
+    private boolean authorizationCacheEnabled;
+
+    /**
+     * 并行认证线程数
+     */
+    @Value("${app.security.realms.threads:32}")
+    private int realmThreads;
+
+    /**
+     * 单个 Realm 的默认认证超时（毫秒）
+     */
+    @Value("${app.security.realms.timeout-ms:2000}")
+    private long realmTimeoutMillis;
+
+    @Value("${app.security.realms.legacy.timeout-ms:1000}")
+    private long legacyRealmTimeoutMillis;
+
+    @Value("${app.security.realms.service-accounts.timeout-ms:200}")
+    private long serviceAccountRealmTimeoutMillis;
+
     /**
      * 配置Web Session管理器
      * 确保Shiro Session与Web环境兼容，支持Cookie传递
+     * @param loginMetrics 登录阶段指标
      * @return DefaultWebSessionManager
      */
     @Bean
-    public DefaultWebSessionManager sessionManager() {
+    public DefaultWebSessionManager sessionManager(LoginMetrics loginMetrics) {
         DefaultWebSessionManager sessionManager = new DefaultWebSessionManager();
 
+        // 使用带耗时统计的内存 SessionDAO
+        sessionManager.setSessionDAO(new InstrumentedSessionDAO(loginMetrics));
+
         // 启用Session ID Cookie
         sessionManager.setSessionIdCookieEnabled(true);
 
@@ -39,7 +95,7 @@ public class ShiroBean {
         // 设置Session超时时间（30分钟）
         sessionManager.setGlobalSessionTimeout(1800000L);
 
-        System.out.println("配置Shiro Web Session管理器");
+        logger.info("配置Shiro Web Session管理器");
         return sessionManager;
     }
 
@@ -47,27 +103,52 @@ public class ShiroBean {
     /**
      * 配置 SecurityManager（核心安全管理器）
      * 使用DefaultWebSecurityManager支持Web环境的Session管理
+     * 显式设置原生 Session 管理器，使 Session 可以通过 SessionDAO 按 ID 查询（用于 Session 内省）
+     * 启用了多个 Realm 时并行认证，第一个认证成功的 Realm 胜出（见 ConcurrentModularRealmAuthenticator）
      * @param userRealm 用户认证授权 Realm
+     * @param legacyRealm 旧用户表 Realm（可选）
+     * @param serviceAccountRealm 服务账号 Realm（可选）
+     * @param sessionManager Web Session 管理器
+     * @param meterRegistry 指标注册表
      * @return SecurityManager 实例
      */
     @Primary
     @Bean(name = {"authorizer","authenticator"})
-    public SecurityManager securityManager(UserRealm userRealm) {
+    public SecurityManager securityManager(UserRealm userRealm,
+                                           ObjectProvider<LegacyJdbcRealm> legacyRealm,
+                                           ObjectProvider<ServiceAccountRealm> serviceAccountRealm,
+                                           DefaultWebSessionManager sessionManager,
+                                           MeterRegistry meterRegistry) {
+        // Realm 顺序即全部失败时选择异常的优先顺序
+        List<Realm> realms = new ArrayList<>();
+        realms.add(userRealm);
+        legacyRealm.ifAvailable(realms::add);
+        serviceAccountRealm.ifAvailable(realms::add);
+
+        Map<String, Long> realmTimeouts = new HashMap<>();
+        realmTimeouts.put(LEGACY_REALM_NAME, legacyRealmTimeoutMillis);
+        realmTimeouts.put(SERVICE_ACCOUNT_REALM_NAME, serviceAccountRealmTimeoutMillis);
+
         DefaultWebSecurityManager securityManager = new DefaultWebSecurityManager();
-        securityManager.setRealm(userRealm);
+        // 先设置认证器，setRealms 会把 Realm 同步给认证器
+        securityManager.setAuthenticator(new ConcurrentModularRealmAuthenticator(
+                meterRegistry, realmThreads, realmTimeoutMillis, realmTimeouts));
+        securityManager.setRealms(realms);
+        securityManager.setSessionManager(sessionManager);
+        logger.info("配置Shiro Realm: {}", realms.stream().map(Realm::getName).toList());
         SecurityUtils.setSecurityManager(securityManager);
 
-        System.out.println("配置Shiro Web SecurityManager，集成Session管理器");
+        logger.info("配置Shiro Web SecurityManager，集成Session管理器");
         return securityManager;
     }
 
     /**
      * 配置密码匹配器
-     * 用于验证用户输入的密码与数据库中存储的加密密码是否匹配
+     * 用于验证用户输入的密码与数据库中存储的加密密码是否匹配，同时记录匹配耗时
      */
     @Bean
-    public HashedCredentialsMatcher hashedCredentialsMatcher() {
-        HashedCredentialsMatcher matcher = new HashedCredentialsMatcher();
+    public HashedCredentialsMatcher hashedCredentialsMatcher(LoginMetrics loginMetrics) {
+        HashedCredentialsMatcher matcher = new TimedCredentialsMatcher(loginMetrics);
         // 设置加密算法名称
         matcher.setHashAlgorithmName("MD5");
         // 设置加密迭代次数
@@ -75,7 +156,7 @@ public class ShiroBean {
         // 设置是否存储为十六进制格式
         matcher.setStoredCredentialsHexEncoded(true);
 
-        System.out.println("配置密码匹配器: MD5算法，1024次迭代，十六进制存储");
+        logger.info("配置密码匹配器: MD5算法，1024次迭代，十六进制存储");
         return matcher;
     }
 
@@ -83,16 +164,75 @@ public class ShiroBean {
      * 配置自定义 Realm
      * Realm 负责用户认证和授权
      *
+     * @param hashedCredentialsMatcher 密码匹配器
      * @return UserRealm 实例
      */
     @Bean
-    public UserRealm userRealm() {
+    public UserRealm userRealm(HashedCredentialsMatcher hashedCredentialsMatcher) {
         UserRealm userRealm = new UserRealm();
+        userRealm.setName(USER_REALM_NAME);
         // 设置密码匹配器
-        userRealm.setCredentialsMatcher(hashedCredentialsMatcher());
+        userRealm.setCredentialsMatcher(hashedCredentialsMatcher);
+        // 按配置启用授权缓存（认证信息不缓存）
+        userRealm.setAuthenticationCachingEnabled(false);
+        if (authorizationCacheEnabled) {
+            userRealm.setCacheManager(new MemoryConstrainedCacheManager());
+            logger.info("启用Realm授权缓存");
+        }
         return userRealm;
     }
 
+    /**
+     * 配置旧用户表 Realm
+     * 迁移期间旧表中的用户仍可登录，密码按旧表的算法校验（不加盐）
+     *
+     * @param dataSource 数据源
+     * @return LegacyJdbcRealm 实例
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.security.realms.legacy.enabled", havingValue = "true")
+    public LegacyJdbcRealm legacyRealm(DataSource dataSource,
+                                       @Value("${app.security.realms.legacy.authentication-query:SELECT password FROM legacy_users WHERE username = ?}") String authenticationQuery,
+                                       @Value("${app.security.realms.legacy.hash-algorithm:MD5}") String hashAlgorithm,
+                                       @Value("${app.security.realms.legacy.hash-iterations:1}") int hashIterations,
+                                       @Value("${app.security.realms.legacy.default-roles:user}") Set<String> defaultRoles) {
+        LegacyJdbcRealm legacyRealm = new LegacyJdbcRealm(new LinkedHashSet<>(defaultRoles));
+        legacyRealm.setName(LEGACY_REALM_NAME);
+        legacyRealm.setDataSource(dataSource);
+        legacyRealm.setAuthenticationQuery(authenticationQuery);
+        legacyRealm.setCredentialsMatcher(hexCredentialsMatcher(hashAlgorithm, hashIterations));
+        legacyRealm.setAuthenticationCachingEnabled(false);
+        logger.info("启用旧用户表 Realm: {}算法，{}次迭代", hashAlgorithm, hashIterations);
+        return legacyRealm;
+    }
+
+    /**
+     * 配置服务账号 Realm
+     * 从本地 INI 文件读取服务账号（[users] 段：账号 = 密码哈希, 角色...；[roles] 段：角色 = 权限...），
+     * 不依赖数据库，数据库不可用时服务账号仍可登录
+     *
+     * @return ServiceAccountRealm 实例
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.security.realms.service-accounts.enabled", havingValue = "true")
+    public ServiceAccountRealm serviceAccountRealm(@Value("${app.security.realms.service-accounts.file:file:service-accounts.ini}") String file,
+                                                   @Value("${app.security.realms.service-accounts.hash-algorithm:SHA-256}") String hashAlgorithm,
+                                                   @Value("${app.security.realms.service-accounts.hash-iterations:1}") int hashIterations) {
+        ServiceAccountRealm serviceAccountRealm = new ServiceAccountRealm();
+        serviceAccountRealm.setName(SERVICE_ACCOUNT_REALM_NAME);
+        serviceAccountRealm.setResourcePath(file);
+        serviceAccountRealm.setCredentialsMatcher(hexCredentialsMatcher(hashAlgorithm, hashIterations));
+        logger.info("启用服务账号 Realm: {}", file);
+        return serviceAccountRealm;
+    }
+
+    private static HashedCredentialsMatcher hexCredentialsMatcher(String hashAlgorithm, int hashIterations) {
+        HashedCredentialsMatcher matcher = new HashedCredentialsMatcher(hashAlgorithm);
+        matcher.setHashIterations(hashIterations);
+        matcher.setStoredCredentialsHexEncoded(true);
+        return matcher;
+    }
+
     /**
      * 初始化 SecurityUtils
      * 确保 SecurityManager 正确绑定到 SecurityUtils
@@ -101,7 +241,7 @@ public class ShiroBean {
     public void initSecurityUtils() {
         // 注意：在 Spring 环境中，SecurityManager 会自动设置
         // 这里的 PostConstruct 主要是为了确认配置已正确加载
-        System.out.println("Shiro SecurityManager 配置完成");
+        logger.info("Shiro SecurityManager 配置完成");
     }
 
     /**
@@ -124,6 +264,10 @@ public class ShiroBean {
         // 登录和注册接口允许匿名访问
         chainDefinition.addPathDefinition("/shiro/login", "anon");
         chainDefinition.addPathDefinition("/shiro/register", "anon");
+        // 批量凭证校验、Session 内省供内部服务和网关边车调用：服务账号通过 HTTP Basic 认证（不创建 Session），
+        // 过滤器链按应用内路径匹配（不含 context-path），角色和 IP 白名单由控制器校验
+        chainDefinition.addPathDefinition("/credentials/verify", "noSessionCreation, authcBasic");
+        chainDefinition.addPathDefinition("/sessions/introspect", "noSessionCreation, authcBasic");
         chainDefinition.addPathDefinition("/shiro/logout", "authc");
 
         // 测试接口允许匿名访问（用于测试登录前的访问）
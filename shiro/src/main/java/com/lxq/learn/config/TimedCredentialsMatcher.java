@@ -0,0 +1,46 @@
+package com.lxq.learn.config;
+
+import com.lxq.learn.jfr.CredentialsMatchEvent;
+import com.lxq.learn.jfr.JfrSupport;
+import com.lxq.learn.logging.AuthEvents;
+import com.lxq.learn.metrics.LoginMetrics;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
+
+/**
+ * 带耗时统计的密码匹配器
+ * 在 HashedCredentialsMatcher 的基础上记录密码哈希计算与比对的耗时，并输出 JFR 事件
+ * 认证结果日志由 ShiroController 在登录结束时统一记录
+ */
+public class TimedCredentialsMatcher extends HashedCredentialsMatcher {
+
+    private final LoginMetrics loginMetrics;
+
+    public TimedCredentialsMatcher(LoginMetrics loginMetrics) {
+        this.loginMetrics = loginMetrics;
+    }
+
+    @Override
+    public boolean doCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) {
+        CredentialsMatchEvent event = new CredentialsMatchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean matched;
+        try {
+            matched = super.doCredentialsMatch(token, info);
+        } finally {
+            loginMetrics.recordCredentialsMatch(System.nanoTime() - start);
+            event.end();
+        }
+        String username = (String) token.getPrincipal();
+        String outcome = matched ? AuthEvents.SUCCESS : AuthEvents.BAD_CREDENTIALS;
+        if (event.shouldCommit()) {
+            event.usernameHash = JfrSupport.usernameHash(username);
+            event.hashIterations = getHashIterations();
+            event.outcome = outcome;
+            event.commit();
+        }
+        return matched;
+    }
+}
@@ -1,19 +1,34 @@
 package com.lxq.learn.config;
 
+import com.lxq.learn.credential.CredentialSnapshot;
 import com.lxq.learn.entity.User;
+import com.lxq.learn.jfr.AuthenticationEvent;
+import com.lxq.learn.jfr.AuthorizationEvent;
+import com.lxq.learn.jfr.JfrSupport;
+import com.lxq.learn.logging.AuthEvents;
+import com.lxq.learn.metrics.LoginMetrics;
 import com.lxq.learn.service.UserService;
 import org.apache.shiro.authc.*;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.cache.Cache;
 import org.apache.shiro.lang.util.ByteSource;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 自定义用户认证和授权的 Realm
@@ -22,44 +37,98 @@ import java.util.Set;
  */
 public class UserRealm extends AuthorizingRealm {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserRealm.class);
+
+    /**
+     * 请求级授权快照在 Request 属性中的名称
+     */
+    private static final String AUTHORIZATION_SNAPSHOT_ATTRIBUTE = UserRealm.class.getName() + ".AUTHORIZATION_SNAPSHOT";
+
+    /**
+     * 当前请求中 doGetAuthorizationInfo 调用次数在 Request 属性中的名称
+     */
+    private static final String AUTHORIZATION_INVOCATIONS_ATTRIBUTE = UserRealm.class.getName() + ".AUTHORIZATION_INVOCATIONS";
+
+    /**
+     * 快照中表示"没有授权信息"（用户不存在或已禁用）的占位对象
+     */
+    private static final Object NO_AUTHORIZATION_INFO = new Object();
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LoginMetrics loginMetrics;
+
+    @Autowired
+    private CredentialSnapshot credentialSnapshot;
+
     /**
      * 授权方法：获取用户的权限信息
      * 当用户访问需要权限的资源时，Shiro 会调用此方法获取用户权限
      * 现在从数据库获取用户权限信息
+     * 只为通过本 Realm 认证的身份授权：旧用户表、服务账号等其他 Realm 登录的同名用户不会得到这里的角色
      *
      * @param principals 用户身份信息
-     * @return 用户的权限信息
+     * @return 用户的权限信息，身份不是由本 Realm 认证时为 null
      */
     @Override
     protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
-        // 获取用户名（在认证成功时设置的 principal）
-        String username = (String) principals.getPrimaryPrincipal();
+        // 获取用户名（本 Realm 认证成功时设置的 principal）
+        String username = getRealmUsername(principals);
+        if (username == null) {
+            return null;
+        }
 
-        System.out.println("正在为用户 [" + username + "] 获取权限信息...");
+        countAuthorizationInvocation();
+
+        long start = System.nanoTime();
+        try {
+            return loadAuthorizationInfo(username);
+        } finally {
+            loginMetrics.recordAuthorizationFill(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 从数据库加载用户的角色和权限
+     *
+     * @param username 用户名
+     * @return 用户的权限信息，用户不存在或已禁用时为 null
+     */
+    private AuthorizationInfo loadAuthorizationInfo(String username) {
+        logger.debug("正在为用户 [{}] 获取权限信息", username);
 
         // 从数据库验证用户是否存在且启用
-        Optional<User> userOpt = userService.findEnabledUserByUsername(username);
+        Optional<User> userOpt = findEnabledUser(username);
         if (userOpt.isEmpty()) {
-            System.out.println("用户 [" + username + "] 不存在或已被禁用，无法获取权限");
+            logger.info("用户 [{}] 不存在或已被禁用，无法获取权限", username);
             return null;
         }
 
+        return buildAuthorizationInfo(username);
+    }
+
+    /**
+     * 组装用户的角色和权限
+     *
+     * @param username 用户名（调用方已确认用户存在且已启用）
+     * @return 用户的权限信息
+     */
+    private AuthorizationInfo buildAuthorizationInfo(String username) {
         SimpleAuthorizationInfo authorizationInfo = new SimpleAuthorizationInfo();
 
         // 从 UserService 获取用户角色
         String[] userRoles = userService.getUserRoles(username);
         Set<String> roles = new HashSet<>(Arrays.asList(userRoles));
         authorizationInfo.setRoles(roles);
-        System.out.println("用户 [" + username + "] 的角色: " + roles);
+        logger.debug("用户 [{}] 的角色: {}", username, roles);
 
         // 从 UserService 获取用户权限
         String[] userPermissions = userService.getUserPermissions(username);
         Set<String> permissions = new HashSet<>(Arrays.asList(userPermissions));
         authorizationInfo.setStringPermissions(permissions);
-        System.out.println("用户 [" + username + "] 的权限: " + permissions);
+        logger.debug("用户 [{}] 的权限: {}", username, permissions);
 
         return authorizationInfo;
     }
@@ -80,34 +149,40 @@ public class UserRealm extends AuthorizingRealm {
         String username = usernamePasswordToken.getUsername();
         char[] password = usernamePasswordToken.getPassword();
 
-        System.out.println("开始认证用户: " + username);
+        logger.debug("开始认证用户: {}", username);
+
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
 
         if (username == null || username.trim().isEmpty()) {
-            System.out.println("用户名为空，认证失败");
+            commitAuthenticationEvent(event, username, 0L, AuthEvents.EMPTY_USERNAME);
             throw new UnknownAccountException("用户名不能为空");
         }
 
-        // 从数据库查询启用状态的用户信息
-        Optional<User> userOpt = userService.findEnabledUserByUsername(username);
+        // 从数据库查询启用状态的用户信息（数据库慢或不可用时回退到本地凭证快照）
+        long lookupStart = System.nanoTime();
+        Optional<User> userOpt = findEnabledUser(username);
+        long lookupNanos = System.nanoTime() - lookupStart;
+        loginMetrics.recordUserLookup(lookupNanos);
 
         if (userOpt.isEmpty()) {
-            System.out.println("用户 [" + username + "] 不存在或已被禁用");
+            commitAuthenticationEvent(event, username, lookupNanos, AuthEvents.UNKNOWN_ACCOUNT);
             throw new UnknownAccountException("用户名或密码错误");
         }
 
         User user = userOpt.get();
-        System.out.println("从数据库查询到用户: " + user.getUsername() + ", 启用状态: " + user.getEnabled());
+        logger.debug("从数据库查询到用户: {}, 启用状态: {}", user.getUsername(), user.getEnabled());
 
         // 检查账户是否被锁定
         if (!user.isAccountNonLocked()) {
-            System.out.println("用户 [" + username + "] 账户已被锁定");
+            commitAuthenticationEvent(event, username, lookupNanos, AuthEvents.LOCKED);
             throw new LockedAccountException("账户已被锁定");
         }
 
         // 注意：这里不进行密码验证，让Shiro的CredentialsMatcher来处理密码验证
         // Shiro会自动使用配置的CredentialsMatcher来比较用户输入的密码和数据库中的密码
 
-        System.out.println("用户 [" + username + "] 认证成功");
+        logger.debug("用户 [{}] 账户校验通过，交由密码匹配器校验密码", username);
 
         // 创建认证信息
         // 参数说明：
@@ -122,9 +197,250 @@ public class UserRealm extends AuthorizingRealm {
                 getName()                               // Realm名称
         );
 
+        commitAuthenticationEvent(event, username, lookupNanos, "resolved");
         return authenticationInfo;
     }
 
+    /**
+     * 查询启用状态的用户
+     * 数据库查询超出延迟预算、失败或被准入控制拒绝时读取本地凭证快照（未启用快照时直接查询数据库）
+     *
+     * @param username 用户名
+     * @return 启用状态的用户信息（可能为空）
+     */
+    private Optional<User> findEnabledUser(String username) {
+        return credentialSnapshot.readThrough(username, () -> userService.findEnabledUserByUsername(username));
+    }
+
+    /**
+     * 提交认证 JFR 事件
+     * 事件未启用或未超过阈值时 shouldCommit 返回 false，不计算用户名哈希
+     */
+    private static void commitAuthenticationEvent(AuthenticationEvent event, String username, long lookupNanos, String outcome) {
+        if (event.shouldCommit()) {
+            event.usernameHash = JfrSupport.usernameHash(username);
+            event.userLookupDuration = lookupNanos;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * 取出由本 Realm 认证的用户名
+     *
+     * @param principals 用户身份信息
+     * @return 用户名，身份不是由本 Realm 认证时为 null
+     */
+    private String getRealmUsername(PrincipalCollection principals) {
+        if (principals == null) {
+            return null;
+        }
+        Collection<?> fromRealm = principals.fromRealm(getName());
+        return fromRealm.isEmpty() ? null : String.valueOf(fromRealm.iterator().next());
+    }
+
+    /**
+     * 授权缓存的 Key 使用 "Realm 名称:用户名"
+     * 默认使用整个 PrincipalCollection 作为 Key，这里改为本 Realm 认证的用户名，
+     * 这样可以按用户名直接清除或查询授权缓存；加上 Realm 名称前缀，避免与其他 Realm 的同名身份共用缓存条目
+     * 身份不是由本 Realm 认证时沿用 PrincipalCollection（这类身份不会被写入缓存）
+     *
+     * @param principals 用户身份信息
+     * @return 缓存 Key
+     */
+    @Override
+    protected Object getAuthorizationCacheKey(PrincipalCollection principals) {
+        String username = getRealmUsername(principals);
+        return username == null ? principals : authorizationCacheKey(username);
+    }
+
+    private String authorizationCacheKey(String username) {
+        return getName() + ':' + username;
+    }
+
+    /**
+     * 获取授权信息（带请求级快照）
+     * 同一个 HTTP 请求内，hasRole、isPermitted、checkPermission 等调用最多解析一次授权信息，
+     * 之后直接复用快照；不在请求上下文中时（如后台任务）退回到父类的缓存/查询逻辑
+     *
+     * @param principals 用户身份信息
+     * @return 授权信息，用户不存在或已禁用时为 null
+     */
+    @Override
+    protected AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+        // 其他 Realm 认证的身份不查快照和缓存，也不计入授权统计
+        if (getRealmUsername(principals) == null) {
+            return null;
+        }
+        AuthorizationEvent event = new AuthorizationEvent();
+        event.begin();
+        AuthorizationInfo authorizationInfo = getSnapshotAuthorizationInfo(principals, event);
+        if (event.shouldCommit()) {
+            event.usernameHash = principals == null ? 0L : JfrSupport.usernameHash(String.valueOf(principals.getPrimaryPrincipal()));
+            if (authorizationInfo == null) {
+                event.outcome = "no_info";
+            } else {
+                event.outcome = "granted";
+                event.roleCount = authorizationInfo.getRoles() == null ? 0 : authorizationInfo.getRoles().size();
+                event.permissionCount = authorizationInfo.getStringPermissions() == null ? 0 : authorizationInfo.getStringPermissions().size();
+            }
+            event.commit();
+        }
+        return authorizationInfo;
+    }
+
+    /**
+     * 先读请求级快照，再走 Realm 授权缓存/数据库查询
+     *
+     * @param principals 用户身份信息
+     * @param event      授权 JFR 事件，记录缓存命中情况
+     * @return 授权信息，用户不存在或已禁用时为 null
+     */
+    private AuthorizationInfo getSnapshotAuthorizationInfo(PrincipalCollection principals, AuthorizationEvent event) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (principals == null || requestAttributes == null) {
+            return getCachedAuthorizationInfo(principals, event);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> snapshot = (Map<Object, Object>) requestAttributes.getAttribute(
+                AUTHORIZATION_SNAPSHOT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (snapshot == null) {
+            snapshot = new HashMap<>(4);
+            requestAttributes.setAttribute(AUTHORIZATION_SNAPSHOT_ATTRIBUTE, snapshot, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        Object key = getAuthorizationCacheKey(principals);
+        Object cached = snapshot.get(key);
+        if (cached != null) {
+            event.cache = AuthorizationEvent.CACHE_REQUEST;
+            return cached == NO_AUTHORIZATION_INFO ? null : (AuthorizationInfo) cached;
+        }
+
+        AuthorizationInfo authorizationInfo = getCachedAuthorizationInfo(principals, event);
+        snapshot.put(key, authorizationInfo == null ? NO_AUTHORIZATION_INFO : authorizationInfo);
+        return authorizationInfo;
+    }
+
+    /**
+     * 读取 Realm 授权缓存，未命中时调用 doGetAuthorizationInfo 并写回缓存，同时统计授权缓存命中率
+     * 缓存只读取一次，命中/未命中的统计与返回结果来自同一次读取；
+     * 未启用授权缓存（或缓存尚未创建）时交给父类处理，不计数
+     *
+     * @param principals 用户身份信息
+     * @param event      授权 JFR 事件，记录缓存命中情况
+     * @return 授权信息，用户不存在或已禁用时为 null
+     */
+    private AuthorizationInfo getCachedAuthorizationInfo(PrincipalCollection principals, AuthorizationEvent event) {
+        Cache<Object, AuthorizationInfo> cache = getAuthorizationCache();
+        if (principals == null || cache == null) {
+            return super.getAuthorizationInfo(principals);
+        }
+
+        Object key = getAuthorizationCacheKey(principals);
+        AuthorizationInfo authorizationInfo = cache.get(key);
+        if (authorizationInfo != null) {
+            loginMetrics.recordAuthorizationCacheHit();
+            event.cache = AuthorizationEvent.CACHE_HIT;
+            return authorizationInfo;
+        }
+
+        loginMetrics.recordAuthorizationCacheMiss();
+        event.cache = AuthorizationEvent.CACHE_MISS;
+        authorizationInfo = doGetAuthorizationInfo(principals);
+        if (authorizationInfo != null) {
+            cache.put(key, authorizationInfo);
+        }
+        return authorizationInfo;
+    }
+
+    /**
+     * 获取当前请求中 doGetAuthorizationInfo 的调用次数
+     * 用于验证请求级授权快照是否生效；不在请求上下文中时返回 0
+     *
+     * @return 当前请求的 Realm 授权查询次数
+     */
+    public static int getAuthorizationInvocationCount() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return 0;
+        }
+        Object counter = requestAttributes.getAttribute(AUTHORIZATION_INVOCATIONS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return counter == null ? 0 : ((AtomicInteger) counter).get();
+    }
+
+    /**
+     * 记录一次 doGetAuthorizationInfo 调用
+     */
+    private static void countAuthorizationInvocation() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return;
+        }
+        Object counter = requestAttributes.getAttribute(AUTHORIZATION_INVOCATIONS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (counter == null) {
+            counter = new AtomicInteger();
+            requestAttributes.setAttribute(AUTHORIZATION_INVOCATIONS_ATTRIBUTE, counter, RequestAttributes.SCOPE_REQUEST);
+        }
+        ((AtomicInteger) counter).incrementAndGet();
+    }
+
+    /**
+     * 获取指定身份的授权信息
+     * 优先读取授权缓存，未命中时再调用 doGetAuthorizationInfo
+     * 供 Session 内省等不绑定 Subject 的场景使用
+     *
+     * @param principals 用户身份信息
+     * @return 授权信息，用户不存在或已禁用时为 null
+     */
+    public AuthorizationInfo resolveAuthorizationInfo(PrincipalCollection principals) {
+        return getAuthorizationInfo(principals);
+    }
+
+    /**
+     * 是否启用了授权缓存（启用后才能预加载）
+     *
+     * @return 授权缓存是否可用
+     */
+    public boolean isAuthorizationCacheAvailable() {
+        return getAuthorizationCache() != null;
+    }
+
+    /**
+     * 预加载指定用户的授权信息到授权缓存
+     * 调用方需保证用户存在且已启用（如来自启用用户的批量查询），这里不再逐个查询数据库
+     *
+     * @param username 用户名
+     * @return 是否写入了缓存，未启用授权缓存时返回 false
+     */
+    public boolean preloadAuthorizationInfo(String username) {
+        Cache<Object, AuthorizationInfo> cache = getAuthorizationCache();
+        if (cache == null) {
+            return false;
+        }
+        cache.put(authorizationCacheKey(username), buildAuthorizationInfo(username));
+        return true;
+    }
+
+    /**
+     * 获取授权缓存中的用户名（用于保存最近活跃用户，下次启动时优先预热）
+     *
+     * @return 已缓存授权信息的用户名，未启用授权缓存时为空集合
+     */
+    public Set<String> getCachedAuthorizationUsernames() {
+        Cache<Object, AuthorizationInfo> cache = getAuthorizationCache();
+        Set<String> usernames = new HashSet<>();
+        if (cache != null) {
+            String prefix = authorizationCacheKey("");
+            for (Object key : cache.keys()) {
+                if (key instanceof String name && name.startsWith(prefix)) {
+                    usernames.add(name.substring(prefix.length()));
+                }
+            }
+        }
+        return usernames;
+    }
+
     /**
      * 清除指定用户的授权缓存
      * 当用户权限发生变化时调用，强制重新获取权限信息
@@ -134,8 +450,8 @@ public class UserRealm extends AuthorizingRealm {
     public void clearCachedAuthorizationInfo(String username) {
         // 如果启用了缓存，清除指定用户的授权缓存
         if (getAuthorizationCache() != null) {
-            getAuthorizationCache().remove(username);
-            System.out.println("已清除用户 [" + username + "] 的权限缓存");
+            getAuthorizationCache().remove(authorizationCacheKey(username));
+            logger.debug("已清除用户 [{}] 的权限缓存", username);
         }
     }
 
@@ -145,6 +461,6 @@ public class UserRealm extends AuthorizingRealm {
      */
     public void clearAllCache() {
 //        clearCache();
-        System.out.println("已清除所有认证和授权缓存");
+        logger.debug("已清除所有认证和授权缓存");
     }
 }
\ No newline at end of file
@@ -1,17 +1,27 @@
 package com.lxq.learn.controller;
 
+import com.lxq.learn.admission.ServiceOverloadedException;
+import com.lxq.learn.audit.LoginAuditService;
+import com.lxq.learn.logging.AuthEvents;
+import com.lxq.learn.service.SessionIntrospectionService;
 import com.lxq.learn.service.UserService;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.*;
+import org.apache.shiro.authz.UnauthenticatedException;
+import org.apache.shiro.authz.UnauthorizedException;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.subject.Subject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Shiro 认证控制器
@@ -24,6 +34,36 @@ public class ShiroController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SessionIntrospectionService sessionIntrospectionService;
+
+    @Autowired
+    private LoginAuditService loginAuditService;
+
+    /**
+     * 内部接口调用方必须具有的角色
+     */
+    @Value("${app.security.internal.role:service}")
+    private String internalRole;
+
+    /**
+     * 内部接口调用方 IP 白名单，为空时不限制
+     */
+    @Value("${app.security.internal.allowed-ips:}")
+    private Set<String> internalAllowedIps;
+
+    /**
+     * 批量凭证校验单次请求允许的最大条数
+     */
+    @Value("${app.security.bulk-verify.max-batch-size:1000}")
+    private int bulkVerifyMaxBatchSize;
+
+    /**
+     * Session 内省单次请求允许的最大条数
+     */
+    @Value("${app.security.session-introspect.max-batch-size:1000}")
+    private int introspectMaxBatchSize;
+
     /**
      * 用户登录接口 - GET 方式（用于测试，支持查询参数）
      * GET /shiro/login?username=xxx&password=xxx
@@ -52,6 +92,7 @@ public class ShiroController {
 
     /**
      * 执行登录的核心逻辑
+     * 每次登录的结果都会记录到登录审计（异步写入，不增加请求内的数据库访问）
      *
      * @param loginRequest 登录请求
      * @param request HTTP请求对象
@@ -59,6 +100,7 @@ public class ShiroController {
      */
     private Map<String, Object> performLogin(LoginRequest loginRequest, HttpServletRequest request) {
         Map<String, Object> result = new HashMap<>();
+        String auditOutcome = null;
 
         try {
             // 获取当前用户主体
@@ -80,6 +122,7 @@ public class ShiroController {
 
             // 执行登录
             subject.login(token);
+            auditOutcome = AuthEvents.SUCCESS;
 
             // 登录成功，Shiro会自动管理Session
             result.put("success", true);
@@ -87,25 +130,143 @@ public class ShiroController {
             result.put("username", subject.getPrincipal());
 
         } catch (UnknownAccountException e) {
+            auditOutcome = AuthEvents.UNKNOWN_ACCOUNT;
             result.put("success", false);
             result.put("message", "用户名不存在");
         } catch (IncorrectCredentialsException e) {
+            auditOutcome = AuthEvents.BAD_CREDENTIALS;
             result.put("success", false);
             result.put("message", "密码错误");
         } catch (LockedAccountException e) {
+            auditOutcome = AuthEvents.LOCKED;
             result.put("success", false);
             result.put("message", "账户被锁定");
         } catch (AuthenticationException e) {
+            // Realm 中抛出的过载异常会被 Shiro 包装成 AuthenticationException，取出后交给全局异常处理器返回 503
+            if (e.getCause() instanceof ServiceOverloadedException overloaded) {
+                auditOutcome = AuthEvents.OVERLOADED;
+                throw overloaded;
+            }
+            auditOutcome = AuthEvents.FAILED;
             result.put("success", false);
             result.put("message", "认证失败：" + e.getMessage());
+        } catch (ServiceOverloadedException e) {
+            auditOutcome = AuthEvents.OVERLOADED;
+            throw e;
         } catch (Exception e) {
+            auditOutcome = AuthEvents.ERROR;
             result.put("success", false);
             result.put("message", "登录过程中发生错误：" + e.getMessage());
+        } finally {
+            // 已登录时直接返回，不算一次登录
+            if (auditOutcome != null) {
+                AuthEvents.outcome(loginRequest.getUsername(), auditOutcome);
+                loginAuditService.record(loginRequest.getUsername(), auditOutcome, request);
+            }
         }
 
         return result;
     }
 
+    /**
+     * 批量凭证校验接口（供内部服务使用）
+     * POST /shiro/credentials/verify
+     * 调用方必须是具有服务角色的服务账号（见 requireInternalCaller），匿名调用返回 401；
+     * 被校验的凭证不调用 subject.login，因此不会创建 Session；结果顺序与请求中的凭证顺序一致，
+     * 每条校验结果都会记录到登录审计
+     *
+     * @param verifyRequest 包含多组用户名和密码的请求
+     * @param request HTTP请求对象
+     * @return 校验结果
+     */
+    @PostMapping("/credentials/verify")
+    public Map<String, Object> verifyCredentials(@RequestBody BulkVerifyRequest verifyRequest, HttpServletRequest request) {
+        requireInternalCaller(request);
+        Map<String, Object> result = new HashMap<>();
+
+        if (verifyRequest == null || verifyRequest.getCredentials() == null) {
+            result.put("success", false);
+            result.put("message", "请求参数不能为空");
+            return result;
+        }
+
+        if (verifyRequest.getCredentials().size() > bulkVerifyMaxBatchSize) {
+            result.put("success", false);
+            result.put("message", "单次最多校验 " + bulkVerifyMaxBatchSize + " 组凭证");
+            return result;
+        }
+
+        List<UserService.Credential> credentials = new ArrayList<>(verifyRequest.getCredentials().size());
+        for (LoginRequest item : verifyRequest.getCredentials()) {
+            credentials.add(item == null ? null : new UserService.Credential(item.getUsername(), item.getPassword()));
+        }
+
+        List<UserService.CredentialCheckResult> results = userService.verifyCredentials(credentials);
+        for (UserService.CredentialCheckResult checkResult : results) {
+            if (checkResult.getUsername() != null) {
+                loginAuditService.record(checkResult.getUsername(),
+                        checkResult.isValid() ? AuthEvents.SUCCESS : AuthEvents.FAILED, request);
+            }
+        }
+
+        result.put("success", true);
+        result.put("results", results);
+        return result;
+    }
+
+    /**
+     * 校验内部接口的调用方
+     * 配置了 IP 白名单时调用方地址必须在白名单中；调用方必须已认证（HTTP Basic 或已登录的 Session）且具有服务角色
+     *
+     * @param request HTTP请求对象
+     * @throws UnauthenticatedException 匿名调用（401）
+     * @throws UnauthorizedException    地址不在白名单中或缺少服务角色（403）
+     */
+    private void requireInternalCaller(HttpServletRequest request) {
+        if (!internalAllowedIps.isEmpty() && !internalAllowedIps.contains(request.getRemoteAddr())) {
+            throw new UnauthorizedException("调用方地址不在内部接口白名单中");
+        }
+        Subject subject = SecurityUtils.getSubject();
+        if (!subject.isAuthenticated()) {
+            throw new UnauthenticatedException("内部接口需要服务账号认证");
+        }
+        if (!subject.hasRole(internalRole)) {
+            throw new UnauthorizedException("内部接口需要 " + internalRole + " 角色");
+        }
+    }
+
+    /**
+     * Session 批量内省接口（供 API 网关边车使用）
+     * POST /shiro/sessions/introspect
+     * 调用方必须是具有服务角色的服务账号（见 requireInternalCaller），匿名调用返回 401；
+     * 返回每个 Session 是否有效、对应的用户、角色和过期时间，不会绑定 Subject 或刷新 Session
+     *
+     * @param introspectRequest 包含 Session ID 列表的请求
+     * @param request HTTP请求对象
+     * @return 内省结果
+     */
+    @PostMapping("/sessions/introspect")
+    public Map<String, Object> introspectSessions(@RequestBody IntrospectRequest introspectRequest, HttpServletRequest request) {
+        requireInternalCaller(request);
+        Map<String, Object> result = new HashMap<>();
+
+        if (introspectRequest == null || introspectRequest.getSessionIds() == null) {
+            result.put("success", false);
+            result.put("message", "请求参数不能为空");
+            return result;
+        }
+
+        if (introspectRequest.getSessionIds().size() > introspectMaxBatchSize) {
+            result.put("success", false);
+            result.put("message", "单次最多内省 " + introspectMaxBatchSize + " 个 Session");
+            return result;
+        }
+
+        result.put("success", true);
+        result.put("sessions", sessionIntrospectionService.introspect(introspectRequest.getSessionIds()));
+        return result;
+    }
+
     /**
      * 用户注册接口
      * POST /shiro/register
@@ -165,6 +326,8 @@ public class ShiroController {
                 result.put("timestamp", System.currentTimeMillis());
             }
 
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             result.put("success", false);
             result.put("message", "注册过程中发生未知错误：" + e.getMessage());
@@ -310,6 +473,36 @@ public class ShiroController {
         }
     }
 
+    /**
+     * 批量凭证校验请求的数据传输对象
+     */
+    public static class BulkVerifyRequest {
+        private List<LoginRequest> credentials;
+
+        public List<LoginRequest> getCredentials() {
+            return credentials;
+        }
+
+        public void setCredentials(List<LoginRequest> credentials) {
+            this.credentials = credentials;
+        }
+    }
+
+    /**
+     * Session 内省请求的数据传输对象
+     */
+    public static class IntrospectRequest {
+        private List<String> sessionIds;
+
+        public List<String> getSessionIds() {
+            return sessionIds;
+        }
+
+        public void setSessionIds(List<String> sessionIds) {
+            this.sessionIds = sessionIds;
+        }
+    }
+
     /**
      * 注册请求的数据传输对象
      */
@@ -0,0 +1,224 @@
+package com.lxq.learn.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lxq.learn.repository.UserRepository.UserSummary;
+import com.lxq.learn.service.AccountStatusService;
+import com.lxq.learn.service.UserImportService;
+import com.lxq.learn.service.UserService;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.subject.Subject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户管理控制器
+ * 提供仅管理员可用的用户批量维护接口
+ */
+@RestController
+@RequestMapping("/admin/users")
+public class UserAdminController {
+
+    /**
+     * 分页查询单页最大数量
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 流式导出时每次从数据库读取的行数
+     */
+    private static final int STREAM_PAGE_SIZE = 500;
+
+    /**
+     * JSON Lines 媒体类型
+     */
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountStatusService accountStatusService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 按用户名游标分页查询启用的用户
+     * GET /shiro/admin/users?cursor=xxx&limit=100
+     *
+     * @param cursor 上一页返回的 nextCursor，第一页不传
+     * @param limit  每页数量
+     * @return 当前页用户及下一页游标
+     */
+    @GetMapping
+    public Map<String, Object> listUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "100") int limit) {
+        requireAdmin();
+        Map<String, Object> result = new HashMap<>();
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<UserSummary> users = userService.findEnabledUsersAfter(cursor, pageSize);
+
+        result.put("success", true);
+        result.put("users", users);
+        // 不足一页说明已经到末尾
+        result.put("nextCursor", users.size() < pageSize ? null : users.get(users.size() - 1).getUsername());
+        return result;
+    }
+
+    /**
+     * 以 JSON Lines 格式流式导出所有启用的用户
+     * GET /shiro/admin/users/stream
+     * 内部按游标分页读取，每页一个短事务，响应边查边写，内存占用与用户总数无关
+     *
+     * @return 流式响应
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        requireAdmin();
+
+        StreamingResponseBody body = output -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+            // 每行之间只用换行分隔，不使用默认的空格分隔符
+            generator.setRootValueSeparator(null);
+            String cursor = "";
+            List<UserSummary> page;
+            do {
+                page = userService.findEnabledUsersAfter(cursor, STREAM_PAGE_SIZE);
+                for (UserSummary user : page) {
+                    generator.writeStartObject();
+                    generator.writeStringField("username", user.getUsername());
+                    generator.writeBooleanField("enabled", Boolean.TRUE.equals(user.getEnabled()));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).getUsername();
+                }
+            } while (page.size() == STREAM_PAGE_SIZE);
+            generator.close();
+        };
+
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * 批量导入用户
+     * POST /shiro/admin/users/import?format=csv|jsonl
+     * 请求体直接是文件内容，服务端边读边导入，不会整体加载到内存
+     *
+     * @param format  文件格式，默认 csv
+     * @param request HTTP请求对象
+     * @return 导入报告
+     */
+    @PostMapping("/import")
+    public Map<String, Object> importUsers(@RequestParam(defaultValue = "csv") String format,
+                                           HttpServletRequest request) {
+        requireAdmin();
+        Map<String, Object> result = new HashMap<>();
+
+        UserImportService.Format importFormat;
+        try {
+            importFormat = UserImportService.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            result.put("success", false);
+            result.put("message", "不支持的导入格式：" + format);
+            return result;
+        }
+
+        try (InputStream input = request.getInputStream()) {
+            UserImportService.ImportReport report = userImportService.importUsers(input, importFormat);
+            result.put("success", report.isSuccess());
+            result.put("message", report.isSuccess() ? "导入完成" : "导入中止：" + report.getError());
+            result.put("report", report);
+        } catch (IOException e) {
+            result.put("success", false);
+            result.put("message", "读取导入文件失败：" + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * 批量启用或禁用账户
+     * POST /shiro/admin/users/status
+     * 以分段的集合 UPDATE 修改状态，提交后一次性失效这些用户的授权缓存，禁用时同时注销其所有 Session
+     *
+     * @param statusRequest 用户名列表和目标状态
+     * @return 请求数、实际变化数、注销的 Session 数和耗时
+     */
+    @PostMapping("/status")
+    public Map<String, Object> changeStatus(@RequestBody BulkStatusRequest statusRequest) {
+        requireAdmin();
+        Map<String, Object> result = new HashMap<>();
+
+        if (statusRequest == null || statusRequest.getUsernames() == null || statusRequest.getEnabled() == null) {
+            result.put("success", false);
+            result.put("message", "usernames 和 enabled 不能为空");
+            return result;
+        }
+
+        if (statusRequest.getUsernames().size() > accountStatusService.getMaxUsernames()) {
+            result.put("success", false);
+            result.put("message", "单次最多变更 " + accountStatusService.getMaxUsernames() + " 个账户");
+            return result;
+        }
+
+        result.put("success", true);
+        result.put("report", accountStatusService.changeStatus(statusRequest.getUsernames(), statusRequest.getEnabled()));
+        return result;
+    }
+
+    /**
+     * 校验当前用户为管理员
+     * 所有接口统一由 GlobalExceptionHandler 返回 403
+     *
+     * @throws UnauthorizedException 未登录或不是管理员
+     */
+    private void requireAdmin() {
+        Subject subject = SecurityUtils.getSubject();
+        if (!subject.isAuthenticated() || !subject.hasRole("admin")) {
+            throw new UnauthorizedException("需要管理员权限");
+        }
+    }
+
+    /**
+     * 批量状态变更请求的数据传输对象
+     */
+    public static class BulkStatusRequest {
+        private List<String> usernames;
+        private Boolean enabled;
+
+        public List<String> getUsernames() {
+            return usernames;
+        }
+
+        public void setUsernames(List<String> usernames) {
+            this.usernames = usernames;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.lxq.learn.credential;
+
+import com.lxq.learn.entity.User;
+import com.lxq.learn.repository.UserRepository;
+import com.lxq.learn.repository.UserRepository.UserCredentials;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 本地凭证快照
+ * 后台定时把 用户名、密码哈希、启用状态 分页读出，写成紧凑的开放寻址哈希表文件并内存映射；
+ * 数据库查询超出延迟预算、失败或被准入控制拒绝时，Realm 从快照中读取凭证，数据库短暂不可用时用户仍可登录
+ *
+ * 一致性：
+ * - 只使用本进程构建成功的快照：上一次运行留下的文件不会在启动时加载，
+ *   因为重启前的失效记录只保存在内存中，旧文件里可能还是修改前的密码或禁用前的状态
+ * - 新快照写完后原子替换，替换前旧快照照常提供查询，构建期间不阻塞登录
+ * - 修改密码、禁用账户在事务提交后使该用户的快照记录失效，直到下一次构建读到新值；
+ *   快照中不存在或已失效的用户不会从快照放行，仍以数据库结果为准
+ * - 超过 max-age 的快照不再使用
+ *
+ * 指标：app.credential.snapshot.age（快照年龄，秒）、app.credential.snapshot.entries、
+ * app.credential.snapshot.lookups{result=hit|miss|invalidated}、app.credential.snapshot.fallbacks{reason=timeout|error|saturated}、
+ * app.credential.snapshot.refresh（构建耗时）、app.credential.snapshot.refresh.failures
+ */
+@Component
+public class CredentialSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialSnapshot.class);
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final Path file;
+
+    private final int pageSize;
+
+    private final long latencyBudgetMillis;
+
+    private final long maxAgeMillis;
+
+    /**
+     * 带延迟预算的数据库查询线程池，没有排队：线程都在等待数据库时直接读快照
+     */
+    private final ThreadPoolExecutor lookupExecutor;
+
+    private volatile CredentialSnapshotFile current;
+
+    /**
+     * 已失效的用户名 -> 失效时间（毫秒），构建开始时间晚于失效时间的快照替换后移除
+     */
+    private final ConcurrentHashMap<String, Long> invalidated = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter invalidatedLookups;
+
+    private final Counter timeoutFallbacks;
+
+    private final Counter errorFallbacks;
+
+    private final Counter saturatedFallbacks;
+
+    private final Timer refreshTimer;
+
+    private final Counter refreshFailures;
+
+    @Autowired
+    public CredentialSnapshot(UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.security.credential-snapshot.enabled:false}") boolean enabled,
+                              @Value("${app.security.credential-snapshot.file:credential-snapshot.bin}") String file,
+                              @Value("${app.security.credential-snapshot.page-size:1000}") int pageSize,
+                              @Value("${app.security.credential-snapshot.latency-budget-ms:200}") long latencyBudgetMillis,
+                              @Value("${app.security.credential-snapshot.max-age-ms:86400000}") long maxAgeMillis,
+                              @Value("${app.security.credential-snapshot.lookup-threads:16}") int lookupThreads) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.file = Paths.get(file).toAbsolutePath();
+        this.pageSize = pageSize;
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        this.maxAgeMillis = maxAgeMillis;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.lookupExecutor = new ThreadPoolExecutor(0, Math.max(1, lookupThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "credential-lookup-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("app.credential.snapshot.age", this, CredentialSnapshot::ageSeconds)
+                .description("凭证快照年龄（秒），没有快照时为 NaN")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("app.credential.snapshot.entries", this, snapshot -> {
+                    CredentialSnapshotFile loaded = snapshot.current;
+                    return loaded == null ? 0 : loaded.getEntryCount();
+                })
+                .description("凭证快照中的用户数")
+                .register(meterRegistry);
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.invalidatedLookups = lookupCounter(meterRegistry, "invalidated");
+        this.timeoutFallbacks = fallbackCounter(meterRegistry, "timeout");
+        this.errorFallbacks = fallbackCounter(meterRegistry, "error");
+        this.saturatedFallbacks = fallbackCounter(meterRegistry, "saturated");
+        this.refreshTimer = Timer.builder("app.credential.snapshot.refresh")
+                .description("凭证快照构建耗时")
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("app.credential.snapshot.refresh.failures")
+                .description("凭证快照构建失败次数")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("app.credential.snapshot.lookups")
+                .description("回退到凭证快照时的查找结果：hit=命中，miss=快照中不存在，invalidated=记录已失效")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter fallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("app.credential.snapshot.fallbacks")
+                .description("回退到凭证快照的次数：timeout=超出延迟预算，error=查询失败，saturated=查询线程已满")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    /**
+     * 带快照回退的用户查询
+     * 没有可用快照时直接查询数据库；否则在延迟预算内等待数据库结果，
+     * 超时、失败或查询线程已满时读取快照，快照中没有该用户时仍以数据库结果为准（超时则继续等待，失败则抛出原异常）
+     *
+     * @param username        用户名
+     * @param databaseLookup  数据库查询（启用状态的用户）
+     * @return 启用状态的用户信息（可能为空）
+     */
+    public Optional<User> readThrough(String username, Supplier<Optional<User>> databaseLookup) {
+        CredentialSnapshotFile snapshot = usableSnapshot();
+        if (snapshot == null) {
+            return databaseLookup.get();
+        }
+
+        Future<Optional<User>> lookup;
+        try {
+            lookup = lookupExecutor.submit(databaseLookup::get);
+        } catch (RejectedExecutionException e) {
+            Optional<User> fromSnapshot = fromSnapshot(snapshot, username, saturatedFallbacks);
+            return fromSnapshot != null ? fromSnapshot : databaseLookup.get();
+        }
+
+        try {
+            return lookup.get(latencyBudgetMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 不取消数据库查询：查询线程被占满后，后续请求直接读快照，不会继续堆积
+            Optional<User> fromSnapshot = fromSnapshot(snapshot, username, timeoutFallbacks);
+            return fromSnapshot != null ? fromSnapshot : awaitDatabase(lookup);
+        } catch (ExecutionException e) {
+            Optional<User> fromSnapshot = fromSnapshot(snapshot, username, errorFallbacks);
+            if (fromSnapshot != null) {
+                logger.warn("查询用户 [{}] 失败，使用凭证快照: {}", username, e.getCause().toString());
+                return fromSnapshot;
+            }
+            throw propagate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("查询用户被中断", e);
+        }
+    }
+
+    private Optional<User> awaitDatabase(Future<Optional<User>> lookup) {
+        try {
+            return lookup.get();
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("查询用户被中断", e);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * 从快照读取用户
+     *
+     * @return 启用状态的用户（已禁用时为空），快照中没有该用户或记录已失效时为 null
+     */
+    private Optional<User> fromSnapshot(CredentialSnapshotFile snapshot, String username, Counter reason) {
+        reason.increment();
+        if (invalidated.containsKey(username)) {
+            invalidatedLookups.increment();
+            return null;
+        }
+        CredentialSnapshotFile.Entry entry = snapshot.find(username);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.isEnabled() ? Optional.of(new User(username, entry.getPassword(), true)) : Optional.empty();
+    }
+
+    private CredentialSnapshotFile usableSnapshot() {
+        CredentialSnapshotFile snapshot = current;
+        if (snapshot == null || System.currentTimeMillis() - snapshot.getCreatedAtMillis() > maxAgeMillis) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private double ageSeconds() {
+        CredentialSnapshotFile snapshot = current;
+        return snapshot == null ? Double.NaN : (System.currentTimeMillis() - snapshot.getCreatedAtMillis()) / 1000.0;
+    }
+
+    /**
+     * 使用户的快照记录失效（修改密码、禁用账户后调用）
+     * 由 UserCacheInvalidator 在事务提交后（或收到其他节点的变更时）调用，之后开始的构建会读到新值
+     *
+     * @param username 用户名
+     */
+    public void invalidate(String username) {
+        if (enabled) {
+            invalidated.put(username, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 定时重新构建快照
+     * 按用户名键集分页读取，每页一次短查询，不占用长事务；写完后原子替换文件并切换映射
+     */
+    @Scheduled(initialDelayString = "${app.security.credential-snapshot.initial-delay-ms:10000}",
+               fixedDelayString = "${app.security.credential-snapshot.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        Timer.Sample sample = Timer.start();
+        try (CredentialSnapshotFile.Builder builder = CredentialSnapshotFile.builder(file)) {
+            String cursor = "";
+            while (true) {
+                List<UserCredentials> page = userRepository.findCredentialsAfter(cursor, PageRequest.of(0, pageSize));
+                for (UserCredentials credentials : page) {
+                    builder.add(credentials.getUsername(), credentials.getPassword(), Boolean.TRUE.equals(credentials.getEnabled()));
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+                cursor = page.get(page.size() - 1).getUsername();
+            }
+            int entries = builder.finish(startedAt);
+
+            current = CredentialSnapshotFile.open(file);
+            invalidated.values().removeIf(invalidatedAt -> invalidatedAt < startedAt);
+            logger.info("凭证快照已更新：{} 个用户，耗时 {}ms", entries, System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            // 构建失败时继续使用旧快照，age 指标会持续增长
+            refreshFailures.increment();
+            logger.warn("构建凭证快照失败，继续使用旧快照: {}", e.toString());
+        } finally {
+            sample.stop(refreshTimer);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.lxq.learn.credential;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+/**
+ * 凭证快照文件（只读，内存映射）
+ *
+ * 文件格式：
+ * - 文件头（32 字节）：魔数、版本、生成时间（毫秒）、记录数、槽位数
+ * - 槽位表：槽位数 * 8 字节，每个槽位为 用户名哈希（int）+ 记录偏移 + 1（int，0 表示空槽）；
+ *   开放寻址 + 线性探测，槽位数为 2 的幂且不小于记录数的两倍
+ * - 记录区：启用标志（byte）+ 用户名长度（unsigned short）+ 用户名 UTF-8 + 密码哈希长度（unsigned short）+ 密码哈希 UTF-8
+ *
+ * 查询只使用绝对位置读取，不修改缓冲区状态，可以被多个线程并发读取
+ */
+final class CredentialSnapshotFile {
+
+    private static final int MAGIC = 0x43524453;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 32;
+
+    private static final int SLOT_BYTES = 8;
+
+    private final ByteBuffer buffer;
+
+    private final long createdAtMillis;
+
+    private final int entryCount;
+
+    private final int slotMask;
+
+    private final int recordsOffset;
+
+    private CredentialSnapshotFile(ByteBuffer buffer, long createdAtMillis, int entryCount, int slotCount) {
+        this.buffer = buffer;
+        this.createdAtMillis = createdAtMillis;
+        this.entryCount = entryCount;
+        this.slotMask = slotCount - 1;
+        this.recordsOffset = HEADER_BYTES + slotCount * SLOT_BYTES;
+    }
+
+    /**
+     * 以只读方式映射快照文件
+     *
+     * @param path 快照文件
+     * @return 快照
+     * @throws IOException 文件无法读取或格式不正确
+     */
+    static CredentialSnapshotFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("凭证快照文件大小不正确: " + size);
+            }
+            // 映射在通道关闭后依然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("不是可识别的凭证快照文件: " + path);
+            }
+            long createdAtMillis = buffer.getLong(8);
+            int entryCount = buffer.getInt(16);
+            int slotCount = buffer.getInt(20);
+            if (Integer.bitCount(slotCount) != 1 || HEADER_BYTES + (long) slotCount * SLOT_BYTES > size) {
+                throw new IOException("凭证快照文件槽位表损坏: " + path);
+            }
+            return new CredentialSnapshotFile(buffer, createdAtMillis, entryCount, slotCount);
+        }
+    }
+
+    /**
+     * 创建快照构建器
+     *
+     * @param target 快照文件，构建完成后原子替换
+     * @return 构建器
+     * @throws IOException 无法创建临时文件
+     */
+    static Builder builder(Path target) throws IOException {
+        return new Builder(target);
+    }
+
+    /**
+     * 查找用户凭证
+     *
+     * @param username 用户名
+     * @return 凭证，快照中不存在该用户时为 null
+     */
+    Entry find(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(username);
+        int slot = hash & slotMask;
+        while (true) {
+            int slotPosition = HEADER_BYTES + slot * SLOT_BYTES;
+            int offset = buffer.getInt(slotPosition + 4);
+            if (offset == 0) {
+                return null;
+            }
+            if (buffer.getInt(slotPosition) == hash) {
+                int record = recordsOffset + offset - 1;
+                int nameLength = Short.toUnsignedInt(buffer.getShort(record + 1));
+                if (nameLength == name.length && matches(record + 3, name)) {
+                    boolean enabled = buffer.get(record) != 0;
+                    int passwordPosition = record + 3 + nameLength;
+                    byte[] password = new byte[Short.toUnsignedInt(buffer.getShort(passwordPosition))];
+                    buffer.get(passwordPosition + 2, password);
+                    return new Entry(new String(password, StandardCharsets.UTF_8), enabled);
+                }
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    private boolean matches(int position, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(position + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * 用户名哈希，String.hashCode 的值由规范固定，快照文件跨 JVM 可用
+     */
+    private static int hash(String username) {
+        int h = username.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 快照中的用户凭证
+     */
+    static final class Entry {
+
+        private final String password;
+
+        private final boolean enabled;
+
+        private Entry(String password, boolean enabled) {
+            this.password = password;
+            this.enabled = enabled;
+        }
+
+        String getPassword() {
+            return password;
+        }
+
+        boolean isEnabled() {
+            return enabled;
+        }
+    }
+
+    /**
+     * 快照构建器
+     * 记录逐条追加到临时文件，内存中只保留每条记录的哈希和偏移（8 字节），
+     * finish 时写出文件头和槽位表，再原子替换目标文件；已映射的旧快照不受影响
+     */
+    static final class Builder implements Closeable {
+
+        private final Path target;
+
+        private final Path records;
+
+        private final DataOutputStream out;
+
+        private int[] hashes = new int[1024];
+
+        private int[] offsets = new int[1024];
+
+        private int count;
+
+        private Builder(Path target) throws IOException {
+            this.target = target;
+            this.records = createPrivateTempFile(target, ".records");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(records), 64 * 1024));
+        }
+
+        /**
+         * 追加一条用户凭证
+         */
+        void add(String username, String password, boolean enabled) throws IOException {
+            byte[] name = username.getBytes(StandardCharsets.UTF_8);
+            byte[] hash = password.getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF || hash.length > 0xFFFF) {
+                throw new IOException("用户名或密码哈希过长: " + username);
+            }
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            hashes[count] = CredentialSnapshotFile.hash(username);
+            offsets[count] = out.size();
+            count++;
+
+            out.writeByte(enabled ? 1 : 0);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeShort(hash.length);
+            out.write(hash);
+        }
+
+        /**
+         * 写出槽位表并原子替换目标文件
+         *
+         * @param createdAtMillis 快照生成时间（开始读取数据库的时间）
+         * @return 写入的记录数
+         */
+        int finish(long createdAtMillis) throws IOException {
+            out.close();
+            int slotCount = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + slotCount * SLOT_BYTES);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(8, createdAtMillis);
+            header.putInt(16, count);
+            header.putInt(20, slotCount);
+            int slotMask = slotCount - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = hashes[i] & slotMask;
+                while (header.getInt(HEADER_BYTES + slot * SLOT_BYTES + 4) != 0) {
+                    slot = (slot + 1) & slotMask;
+                }
+                header.putInt(HEADER_BYTES + slot * SLOT_BYTES, hashes[i]);
+                header.putInt(HEADER_BYTES + slot * SLOT_BYTES + 4, offsets[i] + 1);
+            }
+
+            Path snapshot = createPrivateTempFile(target, ".tmp");
+            try (FileChannel output = FileChannel.open(snapshot, StandardOpenOption.WRITE);
+                 FileChannel input = FileChannel.open(records, StandardOpenOption.READ)) {
+                while (header.hasRemaining()) {
+                    output.write(header);
+                }
+                long position = 0;
+                long size = input.size();
+                while (position < size) {
+                    position += input.transferTo(position, size - position, output);
+                }
+                output.force(true);
+            }
+            Files.move(snapshot, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        }
+
+        /**
+         * 删除临时记录文件（构建失败时也会调用）
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+            Files.deleteIfExists(records);
+        }
+
+        /**
+         * 在目标文件所在目录创建临时文件，支持 POSIX 权限时只允许当前用户读写（文件中包含密码哈希）
+         */
+        private static Path createPrivateTempFile(Path target, String suffix) throws IOException {
+            Path directory = target.toAbsolutePath().getParent();
+            String prefix = target.getFileName().toString();
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                FileAttribute<?> ownerOnly = PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+                return Files.createTempFile(directory, prefix, suffix, ownerOnly);
+            }
+            return Files.createTempFile(directory, prefix, suffix);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.lxq.learn.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * 登录审计实体类
+ * 对应数据库 login_audit 表，只用于建表和查询；写入由 LoginAuditService 通过 JDBC 批量 INSERT 完成
+ */
+@Entity
+@Table(name = "login_audit", indexes = {
+        @Index(name = "idx_login_audit_username", columnList = "username, occurred_at"),
+        @Index(name = "idx_login_audit_occurred_at", columnList = "occurred_at")
+})
+public class LoginAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 登录时间
+     */
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    /**
+     * 登录时提交的用户名（可能不存在）
+     */
+    @Column(name = "username", length = 50)
+    private String username;
+
+    /**
+     * 登录结果：success、unknown_account、bad_credentials、locked 等
+     */
+    @Column(name = "outcome", nullable = false, length = 32)
+    private String outcome;
+
+    /**
+     * 客户端 IP
+     */
+    @Column(name = "ip", length = 64)
+    private String ip;
+
+    /**
+     * 客户端 User-Agent（超过 255 个字符时截断）
+     */
+    @Column(name = "user_agent", length = 255)
+    private String userAgent;
+
+    public LoginAudit() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+}
@@ -3,6 +3,9 @@ package com.lxq.learn.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
 
 /**
  * 用户实体类
@@ -11,7 +14,14 @@ import jakarta.validation.constraints.Size;
  */
 @Entity
 @Table(name = "users")
-public class User {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+public class User implements Persistable<String> {
+
+    /**
+     * 二级缓存区域名称
+     */
+    public static final String CACHE_REGION = "users";
 
     /**
      * 用户名 - 主键
@@ -40,6 +50,15 @@ public class User {
     @Column(name = "enabled", nullable = false, columnDefinition = "TINYINT(1)")
     private Boolean enabled = true;
 
+    /**
+     * 是否为尚未持久化的新实体
+     * 主键（用户名）由业务赋值，Spring Data 无法据此判断新旧；
+     * 新建对象默认为 true，使 save 直接 persist（INSERT），不再先 SELECT 再 merge；
+     * 从数据库加载或持久化后置为 false
+     */
+    @Transient
+    private boolean newEntity = true;
+
     /**
      * 无参构造函数 (JPA要求)
      */
@@ -84,6 +103,37 @@ public class User {
         this.enabled = enabled;
     }
 
+    @Override
+    public String getId() {
+        return username;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    /**
+     * 加载或持久化之后标记为已存在的实体
+     */
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    /**
+     * 创建与当前实体字段相同的游离副本
+     * 副本标记为已存在的实体，可在线程之间共享而不影响原实体所在的持久化上下文
+     *
+     * @return 游离副本
+     */
+    public User detachedCopy() {
+        User copy = new User(username, password, enabled);
+        copy.newEntity = false;
+        return copy;
+    }
+
     /**
      * 账户是否可用（非锁定状态）
      * 用于Shiro认证判断
@@ -0,0 +1,67 @@
+package com.lxq.learn.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * 用户变更记录实体类
+ * 对应数据库 user_change_log 表，只用于建表；写入和轮询由 UserChangeBus 通过 JDBC 完成
+ */
+@Entity
+@Table(name = "user_change_log", indexes = {
+        @Index(name = "idx_user_change_log_created_at", columnList = "created_at_ms")
+})
+public class UserChangeLog {
+
+    /**
+     * 自增主键，各节点按 id 顺序轮询
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 发生变更的用户名
+     */
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    /**
+     * 变更类型：CREATED、PASSWORD_CHANGED、ENABLED、DISABLED
+     */
+    @Column(name = "change_type", nullable = false, length = 32)
+    private String changeType;
+
+    /**
+     * 发布变更的节点 ID（节点跳过自己发布的记录）
+     */
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    /**
+     * 发布时间（毫秒时间戳），用于计算传播延迟和清理过期记录
+     */
+    @Column(name = "created_at_ms", nullable = false)
+    private Long createdAtMillis;
+
+    public UserChangeLog() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+}
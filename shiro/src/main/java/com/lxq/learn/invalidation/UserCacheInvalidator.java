@@ -0,0 +1,115 @@
+package com.lxq.learn.invalidation;
+
+import com.lxq.learn.config.UserRealm;
+import com.lxq.learn.credential.CredentialSnapshot;
+import com.lxq.learn.entity.User;
+import com.lxq.learn.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.session.mgt.eis.SessionDAO;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 失效本节点中与用户相关的缓存和 Session
+ * - Realm 授权缓存
+ * - UserService 中进行中的启用用户查询（single-flight）
+ * - 本地凭证快照中的记录
+ * - Hibernate 二级缓存中的 User 实体和查询缓存（本节点的修改 Hibernate 已自动处理，这里主要用于其他节点的变更）
+ * - 禁用时注销这些用户的所有 Session（遍历一次活跃 Session）
+ *
+ * 所有操作都是幂等的，同一变更重复应用没有副作用
+ */
+@Component
+public class UserCacheInvalidator {
+
+    /**
+     * UserRealm 依赖 UserService，UserService 发布的事件最终由这里处理，延迟获取以避免循环依赖
+     */
+    private final ObjectProvider<UserRealm> userRealm;
+
+    private final UserService userService;
+
+    private final CredentialSnapshot credentialSnapshot;
+
+    private final DefaultWebSessionManager sessionManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public UserCacheInvalidator(ObjectProvider<UserRealm> userRealm,
+                                UserService userService,
+                                CredentialSnapshot credentialSnapshot,
+                                DefaultWebSessionManager sessionManager,
+                                EntityManagerFactory entityManagerFactory) {
+        this.userRealm = userRealm;
+        this.userService = userService;
+        this.credentialSnapshot = credentialSnapshot;
+        this.sessionManager = sessionManager;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * 应用一组同类型的用户变更
+     *
+     * @param type      变更类型
+     * @param usernames 用户名
+     * @return 注销的 Session 数
+     */
+    public int apply(UserChangeType type, Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return 0;
+        }
+        UserRealm realm = userRealm.getIfAvailable();
+        for (String username : usernames) {
+            if (realm != null) {
+                realm.clearCachedAuthorizationInfo(username);
+            }
+            userService.forgetInFlightLookup(username);
+            credentialSnapshot.invalidate(username);
+            entityManagerFactory.getCache().evict(User.class, username);
+        }
+        // 启用用户查询的缓存结果（包括"用户不存在"的空结果）一并失效
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+
+        return type == UserChangeType.DISABLED ? stopSessions(usernames) : 0;
+    }
+
+    /**
+     * 遍历一次活跃 Session，注销属于指定用户的 Session
+     *
+     * @return 注销的 Session 数
+     */
+    private int stopSessions(Collection<String> usernames) {
+        Set<String> targets = usernames instanceof Set ? (Set<String>) usernames : new HashSet<>(usernames);
+        SessionDAO sessionDAO = sessionManager.getSessionDAO();
+        List<Session> matched = new ArrayList<>();
+        for (Session session : sessionDAO.getActiveSessions()) {
+            Object principals = session.getAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY);
+            if (principals instanceof PrincipalCollection collection && !collection.isEmpty()
+                    && targets.contains(String.valueOf(collection.getPrimaryPrincipal()))) {
+                matched.add(session);
+            }
+        }
+        for (Session session : matched) {
+            if (session instanceof SimpleSession simpleSession) {
+                simpleSession.stop();
+            }
+            // 删除后携带该 Session ID 的请求会被视为未登录
+            sessionDAO.delete(session);
+        }
+        return matched.size();
+    }
+}
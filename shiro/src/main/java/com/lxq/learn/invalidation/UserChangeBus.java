@@ -0,0 +1,318 @@
+package com.lxq.learn.invalidation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 跨节点缓存/Session 失效总线（传输方式：数据库变更表轮询）
+ *
+ * 发布：UserService 在修改用户的事务中发布 UserChangedEvent，
+ * 事务提交前在同一事务中写入 user_change_log（与用户修改同时提交或回滚），事务提交后失效本节点缓存
+ *
+ * 接收：各节点按固定间隔读取 id 大于上次位置的变更记录，跳过本节点发布的记录，按类型分组后失效本地缓存
+ * 自增 id 按插入顺序分配、按提交顺序可见，读到 id 不连续时记录缺口，之后的轮询补读缺口中的记录，
+ * 超过 gap-timeout-ms 仍未出现的缺口视为已回滚的事务
+ *
+ * 指标：
+ * - app.invalidation.published / app.invalidation.received：发布 / 接收的变更记录数
+ * - app.invalidation.propagation：从发布节点写入变更到本节点应用的延迟（依赖各节点时钟同步）
+ * - app.invalidation.poll.failures：轮询失败次数
+ * - app.invalidation.gaps：当前等待补读的 id 缺口数
+ */
+@Component
+public class UserChangeBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeBus.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_change_log (username, change_type, node_id, created_at_ms) VALUES (?, ?, ?, ?)";
+
+    private static final String SELECT_AFTER_SQL =
+            "SELECT id, username, change_type, node_id, created_at_ms FROM user_change_log WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String SELECT_BY_IDS_SQL =
+            "SELECT id, username, change_type, node_id, created_at_ms FROM user_change_log WHERE id IN (%s)";
+
+    /**
+     * 单次轮询最多跟踪的缺口数，超过时放弃补读（只可能发生在大量并发事务回滚时）
+     */
+    private static final int MAX_GAPS = 1000;
+
+    private static final RowMapper<ChangeRecord> ROW_MAPPER = (rs, rowNum) -> new ChangeRecord(
+            rs.getLong("id"),
+            rs.getString("username"),
+            rs.getString("change_type"),
+            rs.getString("node_id"),
+            rs.getLong("created_at_ms"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final UserCacheInvalidator invalidator;
+
+    private final boolean enabled;
+
+    private final String nodeId;
+
+    private final int batchSize;
+
+    private final long gapTimeoutMillis;
+
+    private final long retentionMillis;
+
+    /**
+     * 已读取到的最大 id，-1 表示尚未初始化（第一次轮询时从当前最大 id 开始，不重放历史记录）
+     */
+    private final AtomicLong lastSeenId = new AtomicLong(-1);
+
+    /**
+     * 等待补读的 id -> 发现缺口的时间（只由轮询线程访问）
+     */
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    private final Counter published;
+
+    private final Counter received;
+
+    private final Timer propagation;
+
+    private final Counter pollFailures;
+
+    @Autowired
+    public UserChangeBus(JdbcTemplate jdbcTemplate,
+                         UserCacheInvalidator invalidator,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.invalidation.enabled:false}") boolean enabled,
+                         @Value("${app.invalidation.node-id:}") String nodeId,
+                         @Value("${app.invalidation.batch-size:500}") int batchSize,
+                         @Value("${app.invalidation.gap-timeout-ms:10000}") long gapTimeoutMillis,
+                         @Value("${app.invalidation.retention-ms:3600000}") long retentionMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidator = invalidator;
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMillis = retentionMillis;
+
+        this.published = Counter.builder("app.invalidation.published")
+                .description("发布到变更表的用户变更记录数")
+                .register(meterRegistry);
+        this.received = Counter.builder("app.invalidation.received")
+                .description("从变更表读取并应用的其他节点变更记录数")
+                .register(meterRegistry);
+        this.propagation = Timer.builder("app.invalidation.propagation")
+                .description("用户变更从发布到本节点应用的延迟")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.pollFailures = Counter.builder("app.invalidation.poll.failures")
+                .description("变更表轮询失败次数")
+                .register(meterRegistry);
+        Gauge.builder("app.invalidation.gaps", gaps, Map::size)
+                .description("等待补读的变更记录 id 缺口数")
+                .register(meterRegistry);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 事务提交前把变更写入变更表（与用户修改处于同一事务）
+     * 不在事务中发布时立即写入
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void record(UserChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String type = event.getType().name();
+        List<String> usernames = event.getUsernames();
+        jdbcTemplate.batchUpdate(INSERT_SQL, usernames, usernames.size(), (ps, username) -> {
+            ps.setString(1, username);
+            ps.setString(2, type);
+            ps.setString(3, nodeId);
+            ps.setLong(4, now);
+        });
+        published.increment(usernames.size());
+    }
+
+    /**
+     * 事务提交后失效本节点缓存（事务回滚时不执行）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void applyLocally(UserChangedEvent event) {
+        if (!event.isAppliedByCaller()) {
+            invalidator.apply(event.getType(), event.getUsernames());
+        }
+    }
+
+    /**
+     * 轮询其他节点发布的变更
+     */
+    @Scheduled(initialDelayString = "${app.invalidation.poll-interval-ms:500}",
+               fixedDelayString = "${app.invalidation.poll-interval-ms:500}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (lastSeenId.get() < 0) {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM user_change_log", Long.class);
+                lastSeenId.set(maxId == null ? 0 : maxId);
+                logger.info("失效总线已启动，节点 {}，从变更记录 {} 之后开始接收", nodeId, lastSeenId.get());
+                return;
+            }
+
+            List<ChangeRecord> records = readGaps();
+            List<ChangeRecord> page;
+            do {
+                page = jdbcTemplate.query(SELECT_AFTER_SQL, ROW_MAPPER, lastSeenId.get(), batchSize);
+                trackGaps(page);
+                records.addAll(page);
+            } while (page.size() == batchSize);
+
+            apply(records);
+        } catch (DataAccessException e) {
+            pollFailures.increment();
+            logger.warn("轮询用户变更表失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 补读之前发现的 id 缺口（当时尚未提交的事务），丢弃超时的缺口
+     */
+    private List<ChangeRecord> readGaps() {
+        List<ChangeRecord> records = new ArrayList<>();
+        if (gaps.isEmpty()) {
+            return records;
+        }
+        String placeholders = String.join(",", Collections.nCopies(gaps.size(), "?"));
+        records.addAll(jdbcTemplate.query(String.format(SELECT_BY_IDS_SQL, placeholders), ROW_MAPPER, gaps.keySet().toArray()));
+        for (ChangeRecord record : records) {
+            gaps.remove(record.id);
+        }
+
+        long expireBefore = System.currentTimeMillis() - gapTimeoutMillis;
+        gaps.values().removeIf(noticedAt -> noticedAt < expireBefore);
+        return records;
+    }
+
+    /**
+     * 记录新读取的一页中 id 不连续的位置，并推进读取位置
+     */
+    private void trackGaps(List<ChangeRecord> page) {
+        long expected = lastSeenId.get() + 1;
+        long now = System.currentTimeMillis();
+        for (ChangeRecord record : page) {
+            if (record.id > expected && gaps.size() + (record.id - expected) <= MAX_GAPS) {
+                for (long id = expected; id < record.id; id++) {
+                    gaps.put(id, now);
+                }
+            }
+            expected = record.id + 1;
+        }
+        if (!page.isEmpty()) {
+            lastSeenId.set(page.get(page.size() - 1).id);
+        }
+    }
+
+    /**
+     * 按变更类型分组应用其他节点的变更
+     */
+    private void apply(List<ChangeRecord> records) {
+        long now = System.currentTimeMillis();
+        int accepted = 0;
+        Map<UserChangeType, Set<String>> grouped = new EnumMap<>(UserChangeType.class);
+        for (ChangeRecord record : records) {
+            if (nodeId.equals(record.nodeId)) {
+                continue;
+            }
+            UserChangeType type;
+            try {
+                type = UserChangeType.valueOf(record.changeType);
+            } catch (IllegalArgumentException e) {
+                logger.warn("忽略未知的用户变更类型: {}", record.changeType);
+                continue;
+            }
+            grouped.computeIfAbsent(type, key -> new LinkedHashSet<>()).add(record.username);
+            propagation.record(Math.max(0, now - record.createdAtMillis), TimeUnit.MILLISECONDS);
+            accepted++;
+        }
+        // EnumMap 按枚举声明顺序遍历，同一批中既有启用又有禁用时禁用最后应用（保守地停止 Session）
+        for (Map.Entry<UserChangeType, Set<String>> entry : grouped.entrySet()) {
+            invalidator.apply(entry.getKey(), entry.getValue());
+        }
+        // 应用之后再计数：计数增加时本地缓存已经失效
+        received.increment(accepted);
+    }
+
+    /**
+     * 定时清理过期的变更记录（多个节点同时执行也没有问题）
+     */
+    @Scheduled(initialDelayString = "${app.invalidation.cleanup-interval-ms:600000}",
+               fixedDelayString = "${app.invalidation.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM user_change_log WHERE created_at_ms < ?",
+                    System.currentTimeMillis() - retentionMillis);
+            if (deleted > 0) {
+                logger.debug("已清理 {} 条过期的用户变更记录", deleted);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("清理用户变更表失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 变更表中的一条记录
+     */
+    private static final class ChangeRecord {
+
+        private final long id;
+
+        private final String username;
+
+        private final String changeType;
+
+        private final String nodeId;
+
+        private final long createdAtMillis;
+
+        private ChangeRecord(long id, String username, String changeType, String nodeId, long createdAtMillis) {
+            this.id = id;
+            this.username = username;
+            this.changeType = changeType;
+            this.nodeId = nodeId;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.lxq.learn.invalidation;
+
+/**
+ * 用户变更类型
+ */
+public enum UserChangeType {
+
+    /**
+     * 新建用户
+     */
+    CREATED,
+
+    /**
+     * 修改密码
+     */
+    PASSWORD_CHANGED,
+
+    /**
+     * 启用账户
+     */
+    ENABLED,
+
+    /**
+     * 禁用账户（各节点同时注销该用户的 Session）
+     */
+    DISABLED
+}
@@ -0,0 +1,44 @@
+package com.lxq.learn.invalidation;
+
+import java.util.List;
+
+/**
+ * 用户变更事件
+ * UserService 在修改用户的事务中发布，由 UserChangeBus 在事务提交前写入变更表（其他节点轮询后失效本地缓存），
+ * 在事务提交后失效本节点的缓存
+ */
+public class UserChangedEvent {
+
+    private final UserChangeType type;
+
+    private final List<String> usernames;
+
+    private final boolean appliedByCaller;
+
+    /**
+     * @param type            变更类型
+     * @param usernames       受影响的用户名
+     * @param appliedByCaller 调用方是否在事务提交后自行失效本节点缓存（为 true 时只通知其他节点）
+     */
+    public UserChangedEvent(UserChangeType type, List<String> usernames, boolean appliedByCaller) {
+        this.type = type;
+        this.usernames = List.copyOf(usernames);
+        this.appliedByCaller = appliedByCaller;
+    }
+
+    public static UserChangedEvent of(UserChangeType type, String username) {
+        return new UserChangedEvent(type, List.of(username), false);
+    }
+
+    public UserChangeType getType() {
+        return type;
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public boolean isAppliedByCaller() {
+        return appliedByCaller;
+    }
+}
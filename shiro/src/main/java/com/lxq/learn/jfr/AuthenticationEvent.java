@@ -0,0 +1,31 @@
+package com.lxq.learn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 认证信息查询事件（UserRealm.doGetAuthenticationInfo）
+ * 持续时间包含用户查询，userLookupDuration 单独记录数据库/缓存查询耗时
+ */
+@Name("com.lxq.learn.Authentication")
+@Label("Authentication")
+@Description("Realm 按用户名加载认证信息")
+@Category({"Shiro", "Login"})
+@StackTrace(false)
+public class AuthenticationEvent extends Event {
+
+    @Label("Username Hash")
+    public long usernameHash;
+
+    @Label("User Lookup Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long userLookupDuration;
+
+    @Label("Outcome")
+    public String outcome;
+}
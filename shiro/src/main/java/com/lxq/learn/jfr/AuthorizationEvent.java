@@ -0,0 +1,55 @@
+package com.lxq.learn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 授权信息查询事件（UserRealm.getAuthorizationInfo，未命中缓存时包含 doGetAuthorizationInfo）
+ */
+@Name("com.lxq.learn.Authorization")
+@Label("Authorization")
+@Description("Realm 获取角色和权限")
+@Category({"Shiro", "Authorization"})
+@StackTrace(false)
+public class AuthorizationEvent extends Event {
+
+    /**
+     * 命中请求级快照
+     */
+    public static final String CACHE_REQUEST = "request";
+
+    /**
+     * 命中 Realm 授权缓存
+     */
+    public static final String CACHE_HIT = "hit";
+
+    /**
+     * 未命中 Realm 授权缓存，查询了数据库
+     */
+    public static final String CACHE_MISS = "miss";
+
+    /**
+     * 未启用 Realm 授权缓存，查询了数据库
+     */
+    public static final String CACHE_DISABLED = "disabled";
+
+    @Label("Username Hash")
+    public long usernameHash;
+
+    @Label("Cache")
+    @Description("request / hit / miss / disabled")
+    public String cache = CACHE_DISABLED;
+
+    @Label("Role Count")
+    public int roleCount;
+
+    @Label("Permission Count")
+    public int permissionCount;
+
+    @Label("Outcome")
+    public String outcome;
+}
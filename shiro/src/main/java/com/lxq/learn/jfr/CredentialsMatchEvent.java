@@ -0,0 +1,28 @@
+package com.lxq.learn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 密码匹配事件（哈希计算与比对）
+ */
+@Name("com.lxq.learn.CredentialsMatch")
+@Label("Credentials Match")
+@Description("密码匹配器计算哈希并比对凭证")
+@Category({"Shiro", "Login"})
+@StackTrace(false)
+public class CredentialsMatchEvent extends Event {
+
+    @Label("Username Hash")
+    public long usernameHash;
+
+    @Label("Hash Iterations")
+    public int hashIterations;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,21 @@
+package com.lxq.learn.jfr;
+
+import jakarta.annotation.PostConstruct;
+import jdk.jfr.FlightRecorder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时注册自定义 JFR 事件
+ * 注册后即使还没有产生事件，JMC / jfr 命令也能看到这些事件类型，并按 JFC 配置启用
+ */
+@Component
+public class JfrEventRegistrar {
+
+    @PostConstruct
+    public void register() {
+        FlightRecorder.register(AuthenticationEvent.class);
+        FlightRecorder.register(CredentialsMatchEvent.class);
+        FlightRecorder.register(AuthorizationEvent.class);
+        FlightRecorder.register(SessionDaoEvent.class);
+    }
+}
@@ -0,0 +1,39 @@
+package com.lxq.learn.jfr;
+
+import java.security.SecureRandom;
+
+/**
+ * JFR 事件公共方法
+ */
+public final class JfrSupport {
+
+    /**
+     * 进程级随机盐，同一次运行（同一份 JFR 录制）内相同用户名的哈希相同，
+     * 不同进程之间不可比对，录制文件中也无法反推出用户名
+     */
+    private static final long SALT = new SecureRandom().nextLong();
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private JfrSupport() {
+    }
+
+    /**
+     * 计算用户名的加盐哈希（FNV-1a）
+     * 只在事件确定要提交（shouldCommit）之后调用
+     *
+     * @param username 用户名
+     * @return 用户名哈希，用户名为 null 时返回 0
+     */
+    public static long usernameHash(String username) {
+        if (username == null) {
+            return 0L;
+        }
+        long hash = SALT;
+        for (int i = 0; i < username.length(); i++) {
+            hash ^= username.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
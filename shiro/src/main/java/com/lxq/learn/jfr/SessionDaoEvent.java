@@ -0,0 +1,34 @@
+package com.lxq.learn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * SessionDAO 操作事件（创建、读取、更新、删除）
+ */
+@Name("com.lxq.learn.SessionDao")
+@Label("Session DAO")
+@Description("SessionDAO 创建、读取、更新或删除 Session")
+@Category({"Shiro", "Session"})
+@StackTrace(false)
+public class SessionDaoEvent extends Event {
+
+    public static final String CREATE = "create";
+
+    public static final String READ = "read";
+
+    public static final String UPDATE = "update";
+
+    public static final String DELETE = "delete";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Found")
+    @Description("读取操作是否找到 Session，其他操作恒为 true")
+    public boolean found = true;
+}
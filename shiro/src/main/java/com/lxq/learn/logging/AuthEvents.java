@@ -0,0 +1,63 @@
+package com.lxq.learn.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 认证结果事件日志
+ * 所有认证结果统一输出到 "com.lxq.learn.auth" 分类，格式为 key=value，便于日志平台解析和按分类采样
+ * 每次登录只在 ShiroController 中记录一次结果；成功和失败都使用 INFO，按同一比例采样
+ * （撞库时失败日志量与攻击流量成正比，完整的失败记录以登录审计为准），只有 error 使用 WARN，不参与采样
+ * 使用参数化日志，级别未开启或被采样丢弃时不会拼接字符串
+ */
+public final class AuthEvents {
+
+    /**
+     * 认证事件日志分类，采样配置见 logback-spring.xml
+     */
+    public static final String CATEGORY = "com.lxq.learn.auth";
+
+    private static final Logger logger = LoggerFactory.getLogger(CATEGORY);
+
+    public static final String SUCCESS = "success";
+
+    public static final String EMPTY_USERNAME = "empty_username";
+
+    public static final String UNKNOWN_ACCOUNT = "unknown_account";
+
+    public static final String LOCKED = "locked";
+
+    public static final String BAD_CREDENTIALS = "bad_credentials";
+
+    /**
+     * 其他认证失败（如所有 Realm 超时）
+     */
+    public static final String FAILED = "failed";
+
+    /**
+     * 数据库访问被准入控制拒绝
+     */
+    public static final String OVERLOADED = "overloaded";
+
+    /**
+     * 认证过程中发生未预期的异常
+     */
+    public static final String ERROR = "error";
+
+    private AuthEvents() {
+    }
+
+    /**
+     * 记录一次认证结果
+     *
+     * @param username 用户名
+     * @param outcome  认证结果
+     */
+    public static void outcome(String username, String outcome) {
+        if (ERROR.equals(outcome)) {
+            logger.warn("event=auth.outcome outcome={} user={}", outcome, username);
+        } else {
+            logger.info("event=auth.outcome outcome={} user={}", outcome, username);
+        }
+    }
+}
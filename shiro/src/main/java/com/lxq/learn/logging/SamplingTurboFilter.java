@@ -0,0 +1,100 @@
+package com.lxq.learn.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按日志分类采样的 TurboFilter
+ * 在创建日志事件之前执行，被丢弃的日志不会格式化，也不会进入异步队列
+ * WARN 及以上级别的日志永远不采样，因此随流量增长的高频事件（如认证失败）应以 INFO 输出才能被采样
+ *
+ * 配置示例（logback-spring.xml）：
+ * <pre>
+ * &lt;turboFilter class="com.lxq.learn.logging.SamplingTurboFilter"&gt;
+ *     &lt;sample&gt;com.lxq.learn.auth=0.1&lt;/sample&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ * 分类按日志名称前缀匹配，取最长的前缀；比例为 0 到 1 之间的小数
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    /**
+     * 表示"不采样"的比例
+     */
+    private static final double KEEP_ALL = 1.0d;
+
+    private final List<String> prefixes = new ArrayList<>();
+
+    private final List<Double> rates = new ArrayList<>();
+
+    /**
+     * 日志名称到采样比例的缓存，避免每条日志都做前缀匹配
+     */
+    private final Map<String, Double> resolvedRates = new ConcurrentHashMap<>();
+
+    /**
+     * 添加一条采样规则，格式为 "分类=比例"
+     *
+     * @param sample 采样规则
+     */
+    public void addSample(String sample) {
+        int separator = sample.indexOf('=');
+        if (separator <= 0) {
+            addError("采样规则格式错误，应为 分类=比例: " + sample);
+            return;
+        }
+        String prefix = sample.substring(0, separator).trim();
+        double rate;
+        try {
+            rate = Double.parseDouble(sample.substring(separator + 1).trim());
+        } catch (NumberFormatException e) {
+            addError("采样比例不是数字: " + sample);
+            return;
+        }
+        prefixes.add(prefix);
+        rates.add(Math.max(0d, Math.min(KEEP_ALL, rate)));
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        // 级别本身未开启的日志交给后续的级别判断处理，不消耗随机数
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = resolvedRates.computeIfAbsent(logger.getName(), this::resolveRate);
+        if (rate >= KEEP_ALL) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private double resolveRate(String loggerName) {
+        int bestLength = -1;
+        double rate = KEEP_ALL;
+        for (int i = 0; i < prefixes.size(); i++) {
+            String prefix = prefixes.get(i);
+            if (prefix.length() > bestLength && matches(loggerName, prefix)) {
+                bestLength = prefix.length();
+                rate = rates.get(i);
+            }
+        }
+        return rate;
+    }
+
+    private static boolean matches(String loggerName, String prefix) {
+        return loggerName.equals(prefix)
+                || (loggerName.startsWith(prefix) && loggerName.charAt(prefix.length()) == '.');
+    }
+}
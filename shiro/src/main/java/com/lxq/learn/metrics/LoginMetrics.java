@@ -0,0 +1,87 @@
+package com.lxq.learn.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录各阶段耗时与 Realm 缓存命中指标
+ * 所有 Timer/Counter 在启动时创建，热路径上只调用 record/increment，
+ * 调用方使用 System.nanoTime() 计时，不创建 Timer.Sample 或 lambda，记录过程不分配对象
+ *
+ * 指标：
+ * - app.login.phase{phase=user-lookup|credentials-match|session-create|authorization-fill}：各阶段耗时直方图
+ * - app.realm.authorization.cache{result=hit|miss}：授权缓存命中次数
+ */
+@Component
+public class LoginMetrics {
+
+    private static final String PHASE_TIMER = "app.login.phase";
+
+    private static final String AUTHORIZATION_CACHE_COUNTER = "app.realm.authorization.cache";
+
+    private final Timer userLookup;
+
+    private final Timer credentialsMatch;
+
+    private final Timer sessionCreate;
+
+    private final Timer authorizationFill;
+
+    private final Counter authorizationCacheHits;
+
+    private final Counter authorizationCacheMisses;
+
+    @Autowired
+    public LoginMetrics(MeterRegistry meterRegistry) {
+        this.userLookup = phaseTimer(meterRegistry, "user-lookup", "认证时按用户名查询用户");
+        this.credentialsMatch = phaseTimer(meterRegistry, "credentials-match", "密码哈希计算与比对");
+        this.sessionCreate = phaseTimer(meterRegistry, "session-create", "登录成功后创建 Session");
+        this.authorizationFill = phaseTimer(meterRegistry, "authorization-fill", "加载角色和权限（doGetAuthorizationInfo）");
+        this.authorizationCacheHits = Counter.builder(AUTHORIZATION_CACHE_COUNTER)
+                .description("Realm 授权缓存命中次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.authorizationCacheMisses = Counter.builder(AUTHORIZATION_CACHE_COUNTER)
+                .description("Realm 授权缓存命中次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase, String description) {
+        return Timer.builder(PHASE_TIMER)
+                .description(description)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+
+    public void recordUserLookup(long nanos) {
+        userLookup.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCredentialsMatch(long nanos) {
+        credentialsMatch.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSessionCreate(long nanos) {
+        sessionCreate.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAuthorizationFill(long nanos) {
+        authorizationFill.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAuthorizationCacheHit() {
+        authorizationCacheHits.increment();
+    }
+
+    public void recordAuthorizationCacheMiss() {
+        authorizationCacheMisses.increment();
+    }
+}
@@ -1,12 +1,23 @@
 package com.lxq.learn.repository;
 
 import com.lxq.learn.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 用户数据访问接口
@@ -28,10 +39,12 @@ public interface UserRepository extends JpaRepository<User, String> {
     /**
      * 根据用户名查找启用状态的用户
      * 用于确保只有启用的账户才能登录
+     * 结果进入查询缓存，users 表有写操作时 Hibernate 会自动使其失效
      *
      * @param username 用户名
      * @return 启用状态的用户信息（可能为空）
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT u FROM User u WHERE u.username = :username AND u.enabled = true")
     Optional<User> findByUsernameAndEnabled(@Param("username") String username);
 
@@ -44,12 +57,47 @@ public interface UserRepository extends JpaRepository<User, String> {
      */
     boolean existsByUsername(String username);
 
+    /**
+     * 根据用户名集合批量查找用户
+     * 用于批量凭证校验，一次 IN 查询取回所有候选用户
+     *
+     * @param usernames 用户名集合
+     * @return 存在的用户列表（顺序不保证）
+     */
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    /**
+     * 根据用户名查找用户并加行锁（SELECT ... FOR UPDATE）
+     * 用于单个用户的状态修改：并发修改同一用户时串行执行，每次都能读到上一次提交后的状态
+     *
+     * @param username 用户名
+     * @return 用户信息（可能为空）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.username = :username")
+    Optional<User> findByUsernameForUpdate(@Param("username") String username);
+
+    /**
+     * 批量修改用户启用状态（一条 UPDATE）
+     * 只更新状态确实发生变化的行，返回值即状态发生变化的用户数；
+     * 批量 UPDATE 绕过持久化上下文，执行后清空持久化上下文，Hibernate 会使 users 的二级缓存和查询缓存失效
+     *
+     * @param usernames 用户名集合
+     * @param enabled   目标启用状态
+     * @return 状态发生变化的行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.enabled = :enabled WHERE u.username IN :usernames AND u.enabled <> :enabled")
+    int updateEnabledByUsernameIn(@Param("usernames") Collection<String> usernames, @Param("enabled") Boolean enabled);
+
     /**
      * 统计启用状态的用户数量
-     * 用于系统监控
+     * 用于启用用户数的初始化和对账：在读写事务中执行，读写分离时路由到主库，
+     * 避免以有复制延迟的从库结果"校正"内存计数
      *
      * @return 启用用户数量
      */
+    @Transactional
     @Query("SELECT COUNT(u) FROM User u WHERE u.enabled = true")
     long countEnabledUsers();
 
@@ -61,5 +109,73 @@ public interface UserRepository extends JpaRepository<User, String> {
      * @return 用户列表
      */
     @Query("SELECT u FROM User u WHERE u.enabled = :enabled ORDER BY u.username")
-    java.util.List<User> findByEnabledOrderByUsername(@Param("enabled") Boolean enabled);
-}
\ No newline at end of file
+    List<User> findByEnabledOrderByUsername(@Param("enabled") Boolean enabled);
+
+    /**
+     * 按用户名游标分页查询（Keyset 分页）
+     * 使用 username > :cursor 代替 OFFSET，翻到任意页的代价都相同；
+     * 直接投影为轻量的 UserSummary，不创建实体，也不进入持久化上下文
+     *
+     * @param enabled  启用状态
+     * @param cursor   上一页最后一个用户名，第一页传空字符串
+     * @param pageable 只使用其中的页大小（page 固定为 0）
+     * @return 当前页的用户摘要
+     */
+    @Query("SELECT u.username AS username, u.enabled AS enabled FROM User u " +
+           "WHERE u.enabled = :enabled AND u.username > :cursor ORDER BY u.username")
+    List<UserSummary> findSummariesByEnabledAfter(@Param("enabled") Boolean enabled,
+                                                  @Param("cursor") String cursor,
+                                                  Pageable pageable);
+
+    /**
+     * 以流的方式只读遍历用户摘要
+     * 调用方必须处于只读事务中，并在使用后关闭流
+     * MySQL 需要在连接 URL 中开启 useCursorFetch=true，fetch size 才会生效（按批从服务端游标读取），
+     * 否则驱动会先把整个结果集读入内存
+     *
+     * @param enabled 启用状态
+     * @return 用户摘要流
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.username AS username, u.enabled AS enabled FROM User u " +
+           "WHERE u.enabled = :enabled ORDER BY u.username")
+    Stream<UserSummary> streamSummariesByEnabled(@Param("enabled") Boolean enabled);
+
+    /**
+     * 按用户名游标分页查询凭证（含已禁用用户），用于构建本地凭证快照
+     *
+     * @param cursor   上一页最后一个用户名，第一页传空字符串
+     * @param pageable 只使用其中的页大小（page 固定为 0）
+     * @return 当前页的用户凭证
+     */
+    @Query("SELECT u.username AS username, u.password AS password, u.enabled AS enabled FROM User u " +
+           "WHERE u.username > :cursor ORDER BY u.username")
+    List<UserCredentials> findCredentialsAfter(@Param("cursor") String cursor, Pageable pageable);
+
+    /**
+     * 用户摘要投影
+     * 只包含列表展示需要的字段，不包含密码
+     */
+    interface UserSummary {
+
+        String getUsername();
+
+        Boolean getEnabled();
+    }
+
+    /**
+     * 用户凭证投影
+     * 只用于构建凭证快照，包含密码哈希，不要用于接口响应
+     */
+    interface UserCredentials {
+
+        String getUsername();
+
+        String getPassword();
+
+        Boolean getEnabled();
+    }
+}
@@ -0,0 +1,124 @@
+package com.lxq.learn.service;
+
+import com.lxq.learn.invalidation.UserCacheInvalidator;
+import com.lxq.learn.invalidation.UserChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 账户状态批量变更服务
+ * 先通过 UserService 以分段的集合 UPDATE 修改启用状态（一个事务），提交后一次性失效受影响用户的
+ * Realm 授权缓存、本地凭证快照记录，禁用时还会遍历一次活跃 Session，注销这些用户的所有 Session
+ * 其他节点由 UserChangeBus 通过变更表通知
+ */
+@Service
+public class AccountStatusService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountStatusService.class);
+
+    private final UserService userService;
+
+    private final UserCacheInvalidator invalidator;
+
+    /**
+     * 每条 UPDATE 的用户名数量
+     */
+    @Value("${app.users.bulk-status.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 单次请求最多变更的用户数
+     */
+    @Value("${app.users.bulk-status.max-usernames:10000}")
+    private int maxUsernames;
+
+    @Autowired
+    public AccountStatusService(UserService userService,
+                                UserCacheInvalidator invalidator) {
+        this.userService = userService;
+        this.invalidator = invalidator;
+    }
+
+    public int getMaxUsernames() {
+        return maxUsernames;
+    }
+
+    /**
+     * 批量启用或禁用账户
+     *
+     * @param usernames 用户名列表（空值和重复项会被忽略）
+     * @param enabled   目标启用状态
+     * @return 变更结果
+     */
+    public BulkStatusResult changeStatus(Collection<String> usernames, boolean enabled) {
+        long start = System.nanoTime();
+
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String username : usernames) {
+            if (username != null && !username.isBlank()) {
+                distinct.add(username.trim());
+            }
+        }
+        if (distinct.isEmpty()) {
+            return new BulkStatusResult(0, 0, 0, 0L);
+        }
+
+        // 事务在方法返回时已提交
+        int affected = userService.bulkUpdateUserStatus(new ArrayList<>(distinct), enabled, chunkSize);
+
+        int sessions = invalidator.apply(enabled ? UserChangeType.ENABLED : UserChangeType.DISABLED, distinct);
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("批量{}账户：请求 {} 个，状态变化 {} 个，注销 Session {} 个，耗时 {}ms",
+                enabled ? "启用" : "禁用", distinct.size(), affected, sessions, durationMillis);
+        return new BulkStatusResult(distinct.size(), affected, sessions, durationMillis);
+    }
+
+    /**
+     * 批量变更结果
+     */
+    public static class BulkStatusResult {
+        private final int requested;
+        private final int affected;
+        private final int sessionsStopped;
+        private final long durationMillis;
+
+        public BulkStatusResult(int requested, int affected, int sessionsStopped, long durationMillis) {
+            this.requested = requested;
+            this.affected = affected;
+            this.sessionsStopped = sessionsStopped;
+            this.durationMillis = durationMillis;
+        }
+
+        /**
+         * 去重后的用户名数
+         */
+        public int getRequested() {
+            return requested;
+        }
+
+        /**
+         * 状态实际发生变化的用户数（不存在或已处于目标状态的不计入）
+         */
+        public int getAffected() {
+            return affected;
+        }
+
+        public int getSessionsStopped() {
+            return sessionsStopped;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+}
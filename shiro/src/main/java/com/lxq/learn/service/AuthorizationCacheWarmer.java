@@ -0,0 +1,320 @@
+package com.lxq.learn.service;
+
+import com.lxq.learn.config.UserRealm;
+import com.lxq.learn.entity.User;
+import com.lxq.learn.repository.UserRepository;
+import com.lxq.learn.repository.UserRepository.UserSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动时预热 Realm 授权缓存
+ * 以 ApplicationRunner 的方式执行，完成（或超出时间预算）之后 Spring Boot 才会把就绪状态切换为
+ * ACCEPTING_TRAFFIC，就绪探针（/actuator/health/readiness，由 management.endpoint.health.probes.enabled 开启）
+ * 通过时活跃用户的授权信息已经在缓存中，重启后不会出现大量相同的小查询；
+ * 负载均衡使用 /actuator/health 时不会等待预热完成
+ *
+ * 预热范围：
+ * - all：按用户名分页（键集分页）遍历所有启用用户
+ * - recent：只预热上次运行时授权缓存中的用户（关闭时写入快照文件），快照不存在时退回到 all
+ * 每页的授权信息在线程池中并行构建，直接写入授权缓存，不再逐个查询用户
+ *
+ * 需要同时启用 app.security.authorization-cache.enabled
+ *
+ * 指标：app.authz.warmup.users（已预热用户数）、app.authz.warmup.total（计划预热用户数）、
+ * app.authz.warmup.state（0=未开始，1=进行中，2=完成，3=超出时间预算，4=失败）
+ */
+@Service
+public class AuthorizationCacheWarmer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorizationCacheWarmer.class);
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_RUNNING = 1;
+    private static final int STATE_COMPLETED = 2;
+    private static final int STATE_TIMED_OUT = 3;
+    private static final int STATE_FAILED = 4;
+
+    private final UserRealm userRealm;
+
+    private final UserService userService;
+
+    private final UserRepository userRepository;
+
+    private final EnabledUserCounter enabledUserCounter;
+
+    @Value("${app.security.authorization-cache.warm-up.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 预热范围：all 或 recent
+     */
+    @Value("${app.security.authorization-cache.warm-up.scope:all}")
+    private String scope;
+
+    @Value("${app.security.authorization-cache.warm-up.page-size:500}")
+    private int pageSize;
+
+    @Value("${app.security.authorization-cache.warm-up.threads:4}")
+    private int threads;
+
+    @Value("${app.security.authorization-cache.warm-up.time-budget-ms:30000}")
+    private long timeBudgetMillis;
+
+    /**
+     * 最多预热的用户数，0 表示不限制
+     */
+    @Value("${app.security.authorization-cache.warm-up.max-users:0}")
+    private long maxUsers;
+
+    @Value("${app.security.authorization-cache.warm-up.snapshot-file:authz-warm-users.txt}")
+    private String snapshotFile;
+
+    private final Counter warmedUsers;
+
+    private final AtomicLong plannedUsers = new AtomicLong();
+
+    private final AtomicInteger state = new AtomicInteger(STATE_IDLE);
+
+    @Autowired
+    public AuthorizationCacheWarmer(UserRealm userRealm,
+                                    UserService userService,
+                                    UserRepository userRepository,
+                                    EnabledUserCounter enabledUserCounter,
+                                    MeterRegistry meterRegistry) {
+        this.userRealm = userRealm;
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.enabledUserCounter = enabledUserCounter;
+
+        this.warmedUsers = Counter.builder("app.authz.warmup.users")
+                .description("启动时预热授权缓存的用户数")
+                .register(meterRegistry);
+        Gauge.builder("app.authz.warmup.total", plannedUsers, AtomicLong::get)
+                .description("计划预热授权缓存的用户数")
+                .register(meterRegistry);
+        Gauge.builder("app.authz.warmup.state", state, AtomicInteger::get)
+                .description("授权缓存预热状态：0=未开始，1=进行中，2=完成，3=超出时间预算，4=失败")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        if (!userRealm.isAuthorizationCacheAvailable()) {
+            logger.warn("授权缓存未启用（app.security.authorization-cache.enabled=false），跳过授权缓存预热");
+            return;
+        }
+
+        state.set(STATE_RUNNING);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "authz-warmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<String> recentUsers = "recent".equalsIgnoreCase(scope) ? readSnapshot() : null;
+            boolean completed = recentUsers != null
+                    ? warmRecentUsers(recentUsers, executor, deadline)
+                    : warmAllEnabledUsers(executor, deadline);
+
+            state.set(completed ? STATE_COMPLETED : STATE_TIMED_OUT);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (completed) {
+                logger.info("授权缓存预热完成：{} 个用户，耗时 {}ms", (long) warmedUsers.count(), elapsedMillis);
+            } else {
+                logger.warn("授权缓存预热超出时间预算（{}ms）或达到用户数上限，已预热 {} 个用户",
+                        timeBudgetMillis, (long) warmedUsers.count());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state.set(STATE_FAILED);
+            logger.warn("授权缓存预热被中断");
+        } catch (RuntimeException e) {
+            // 预热失败不影响启动，未预热的用户按原来的方式在第一次访问时加载
+            state.set(STATE_FAILED);
+            logger.error("授权缓存预热失败", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按用户名分页遍历所有启用用户
+     *
+     * @return 是否全部预热完成
+     */
+    private boolean warmAllEnabledUsers(ExecutorService executor, long deadline) throws InterruptedException {
+        plannedUsers.set(limitUsers(enabledUserCounter.get()));
+        String cursor = null;
+        while (true) {
+            if (isOverBudget(deadline)) {
+                return false;
+            }
+            List<UserSummary> page = userService.findEnabledUsersAfter(cursor, pageSize);
+            if (page.isEmpty()) {
+                return true;
+            }
+            List<String> usernames = new ArrayList<>(page.size());
+            for (UserSummary summary : page) {
+                usernames.add(summary.getUsername());
+            }
+            if (!warmPage(usernames, executor, deadline)) {
+                return false;
+            }
+            cursor = usernames.get(usernames.size() - 1);
+            if (page.size() < pageSize) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 预热上次运行时活跃的用户，每页用一次 IN 查询过滤掉已删除或已禁用的用户
+     *
+     * @return 是否全部预热完成
+     */
+    private boolean warmRecentUsers(List<String> recentUsers, ExecutorService executor, long deadline)
+            throws InterruptedException {
+        plannedUsers.set(limitUsers(recentUsers.size()));
+        for (int from = 0; from < recentUsers.size(); from += pageSize) {
+            if (isOverBudget(deadline)) {
+                return false;
+            }
+            List<String> candidates = recentUsers.subList(from, Math.min(from + pageSize, recentUsers.size()));
+            List<String> usernames = new ArrayList<>(candidates.size());
+            for (User user : userRepository.findByUsernameIn(candidates)) {
+                if (Boolean.TRUE.equals(user.getEnabled())) {
+                    usernames.add(user.getUsername());
+                }
+            }
+            if (!warmPage(usernames, executor, deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 并行构建一页用户的授权信息并写入缓存
+     *
+     * @return 是否应继续预热下一页（未超出时间预算且未达到用户数上限）
+     */
+    private boolean warmPage(List<String> usernames, ExecutorService executor, long deadline)
+            throws InterruptedException {
+        List<Callable<Boolean>> tasks = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            if (maxUsers > 0 && warmedUsers.count() + tasks.size() >= maxUsers) {
+                break;
+            }
+            tasks.add(() -> userRealm.preloadAuthorizationInfo(username));
+        }
+
+        long remaining = deadline - System.nanoTime();
+        for (Future<Boolean> future : executor.invokeAll(tasks, Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+            try {
+                if (future.get()) {
+                    warmedUsers.increment();
+                }
+            } catch (CancellationException e) {
+                // 超出时间预算被取消
+            } catch (ExecutionException e) {
+                logger.warn("预热用户授权信息失败", e.getCause());
+            }
+        }
+
+        logger.info("授权缓存预热进度: {} / {}", (long) warmedUsers.count(), plannedUsers.get());
+        return tasks.size() == usernames.size() && !isOverBudget(deadline);
+    }
+
+    private long limitUsers(long users) {
+        return maxUsers > 0 ? Math.min(maxUsers, users) : users;
+    }
+
+    private static boolean isOverBudget(long deadline) {
+        return System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * 读取最近活跃用户快照
+     *
+     * @return 用户名列表，快照不存在或读取失败时返回 null（退回到预热全部启用用户）
+     */
+    private List<String> readSnapshot() {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.isRegularFile(path)) {
+            logger.info("最近活跃用户快照 {} 不存在，预热全部启用用户", path.toAbsolutePath());
+            return null;
+        }
+        try {
+            List<String> usernames = new ArrayList<>();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    usernames.add(line.trim());
+                }
+            }
+            logger.info("从快照 {} 读取到 {} 个最近活跃用户", path.toAbsolutePath(), usernames.size());
+            return usernames;
+        } catch (IOException e) {
+            logger.warn("读取最近活跃用户快照失败，预热全部启用用户", e);
+            return null;
+        }
+    }
+
+    /**
+     * 关闭时保存授权缓存中的用户名，作为下次启动的最近活跃用户
+     */
+    @PreDestroy
+    public void saveSnapshot() {
+        if (!enabled || !"recent".equalsIgnoreCase(scope)) {
+            return;
+        }
+        Set<String> usernames = userRealm.getCachedAuthorizationUsernames();
+        if (usernames.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(snapshotFile).toAbsolutePath();
+        try {
+            Path temp = Files.createTempFile(path.getParent(), "authz-warm-users", ".tmp");
+            Files.write(temp, usernames, StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("已保存 {} 个最近活跃用户到 {}", usernames.size(), path);
+        } catch (IOException e) {
+            logger.warn("保存最近活跃用户快照失败", e);
+        }
+    }
+}
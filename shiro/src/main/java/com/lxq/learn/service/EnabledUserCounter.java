@@ -0,0 +1,145 @@
+package com.lxq.learn.service;
+
+import com.lxq.learn.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启用用户数计数器
+ * 启动时从数据库统计一次，之后由用户创建、状态变更等写操作在事务提交后原子地增减，
+ * 读取时不访问数据库；后台定时与数据库（主库）对账，并把偏差记录为指标
+ */
+@Component
+public class EnabledUserCounter implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnabledUserCounter.class);
+
+    private final UserRepository userRepository;
+
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * 最近一次对账时数据库与内存计数的偏差（数据库 - 内存）
+     */
+    private final AtomicLong lastDrift = new AtomicLong();
+
+    private final Counter reconciliations;
+
+    private volatile boolean seeded;
+
+    /**
+     * 是否在启动时统计初始值，关闭后在第一次对账时统计
+     */
+    private final boolean seedOnStartup;
+
+    @Autowired
+    public EnabledUserCounter(UserRepository userRepository, MeterRegistry meterRegistry,
+                              @Value("${app.users.enabled-counter.seed-on-startup:true}") boolean seedOnStartup) {
+        this.userRepository = userRepository;
+        this.seedOnStartup = seedOnStartup;
+
+        Gauge.builder("app.users.enabled", count, AtomicLong::get)
+                .description("当前启用的用户数（内存计数）")
+                .register(meterRegistry);
+        Gauge.builder("app.users.enabled.drift", lastDrift, AtomicLong::get)
+                .description("最近一次对账时数据库与内存计数的偏差")
+                .register(meterRegistry);
+        this.reconciliations = Counter.builder("app.users.enabled.reconciliations")
+                .description("启用用户数对账次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 所有单例初始化完成后从数据库统计初始值
+     * 数据库暂不可用时只记录日志，第一次对账时再补统计
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!seedOnStartup) {
+            return;
+        }
+        try {
+            seed();
+        } catch (Exception e) {
+            logger.warn("初始化启用用户数失败，将在稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取启用用户数
+     * 只读取内存计数，不访问数据库；初始统计完成前（启动时未统计或统计失败）返回 0
+     *
+     * @return 启用用户数
+     */
+    public long get() {
+        return count.get();
+    }
+
+    /**
+     * 调整启用用户数
+     * 处于事务中时在事务提交后生效，事务回滚则不生效；不在事务中时立即生效
+     *
+     * @param delta 增量（可为负数）
+     */
+    public void adjust(long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count.addAndGet(delta);
+                }
+            });
+        } else {
+            count.addAndGet(delta);
+        }
+    }
+
+    /**
+     * 定时与数据库对账
+     * 只有在统计期间没有并发变更时才校正，避免把同一次变更计算两次
+     */
+    @Scheduled(initialDelayString = "${app.users.enabled-counter.reconcile-interval:60000}",
+               fixedDelayString = "${app.users.enabled-counter.reconcile-interval:60000}")
+    public void reconcile() {
+        if (!seeded) {
+            seed();
+            return;
+        }
+
+        long before = count.get();
+        long actual = userRepository.countEnabledUsers();
+        long drift = actual - before;
+        reconciliations.increment();
+
+        if (count.compareAndSet(before, actual)) {
+            lastDrift.set(drift);
+            if (drift != 0) {
+                logger.warn("启用用户数存在偏差，已按数据库校正: 内存 {}，数据库 {}", before, actual);
+            }
+        }
+    }
+
+    private synchronized void seed() {
+        if (seeded) {
+            return;
+        }
+        count.set(userRepository.countEnabledUsers());
+        seeded = true;
+        logger.info("启用用户数初始化完成: {}", count.get());
+    }
+}
@@ -0,0 +1,144 @@
+package com.lxq.learn.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.lxq.learn.config.UserRealm;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.ValidatingSession;
+import org.apache.shiro.session.mgt.eis.SessionDAO;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Session 内省服务
+ * 供 API 网关等边车批量查询 Session 是否有效以及其携带的身份和角色
+ * 直接读取 SessionDAO 与授权缓存，不绑定 Subject，也不会刷新 Session 的最后访问时间
+ */
+@Service
+public class SessionIntrospectionService {
+
+    private final DefaultWebSessionManager sessionManager;
+
+    private final UserRealm userRealm;
+
+    @Autowired
+    public SessionIntrospectionService(DefaultWebSessionManager sessionManager, UserRealm userRealm) {
+        this.sessionManager = sessionManager;
+        this.userRealm = userRealm;
+    }
+
+    /**
+     * 批量内省 Session
+     *
+     * @param sessionIds Session ID 列表
+     * @return 内省结果（与输入顺序一致）
+     */
+    public List<SessionIntrospection> introspect(Collection<String> sessionIds) {
+        SessionDAO sessionDAO = sessionManager.getSessionDAO();
+        long now = System.currentTimeMillis();
+
+        List<SessionIntrospection> results = new ArrayList<>(sessionIds.size());
+        for (String sessionId : sessionIds) {
+            results.add(introspect(sessionDAO, sessionId, now));
+        }
+        return results;
+    }
+
+    /**
+     * 内省单个 Session
+     */
+    private SessionIntrospection introspect(SessionDAO sessionDAO, String sessionId, long now) {
+        if (sessionId == null || sessionId.isBlank()) {
+            return SessionIntrospection.invalid(sessionId);
+        }
+
+        Session session;
+        try {
+            session = sessionDAO.readSession(sessionId);
+        } catch (UnknownSessionException e) {
+            return SessionIntrospection.invalid(sessionId);
+        }
+
+        if (session == null || (session instanceof ValidatingSession && !((ValidatingSession) session).isValid())) {
+            return SessionIntrospection.invalid(sessionId);
+        }
+
+        // 根据最后访问时间计算过期时间，负数超时表示永不过期
+        Long expiresAt = null;
+        long timeout = session.getTimeout();
+        if (timeout >= 0) {
+            expiresAt = session.getLastAccessTime().getTime() + timeout;
+            if (expiresAt <= now) {
+                return SessionIntrospection.invalid(sessionId);
+            }
+        }
+
+        // 未登录的 Session 没有身份信息
+        Object principalsAttr = session.getAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY);
+        if (!(principalsAttr instanceof PrincipalCollection) || ((PrincipalCollection) principalsAttr).isEmpty()) {
+            return new SessionIntrospection(sessionId, true, null, Set.of(), expiresAt);
+        }
+
+        PrincipalCollection principals = (PrincipalCollection) principalsAttr;
+        AuthorizationInfo authorizationInfo = userRealm.resolveAuthorizationInfo(principals);
+        Collection<String> roles = authorizationInfo == null || authorizationInfo.getRoles() == null
+                ? Set.of()
+                : authorizationInfo.getRoles();
+
+        return new SessionIntrospection(sessionId, true, principals.getPrimaryPrincipal(), roles, expiresAt);
+    }
+
+    /**
+     * Session 内省结果封装类
+     * 字段名保持简短，空值不输出，以减小批量响应体积
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class SessionIntrospection {
+        private final String id;
+        private final boolean valid;
+        private final Object principal;
+        private final Collection<String> roles;
+        private final Long expiresAt;
+
+        public SessionIntrospection(String id, boolean valid, Object principal, Collection<String> roles, Long expiresAt) {
+            this.id = id;
+            this.valid = valid;
+            this.principal = principal;
+            this.roles = roles;
+            this.expiresAt = expiresAt;
+        }
+
+        static SessionIntrospection invalid(String id) {
+            return new SessionIntrospection(id, false, null, null, null);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public Object getPrincipal() {
+            return principal;
+        }
+
+        public Collection<String> getRoles() {
+            return roles;
+        }
+
+        public Long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
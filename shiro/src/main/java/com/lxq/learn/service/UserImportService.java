@@ -0,0 +1,581 @@
+package com.lxq.learn.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lxq.learn.invalidation.UserChangeType;
+import com.lxq.learn.invalidation.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 用户批量导入服务
+ * 以流水线方式从 CSV / JSON Lines 流中导入大量账户：
+ * 1. 读取阶段：在调用线程中逐行解析，不把整个文件读入内存
+ * 2. 哈希阶段：多个线程并行计算密码哈希
+ * 3. 写入阶段：单个线程按批次执行 JDBC 批量 INSERT，每批一个事务
+ * 阶段之间使用有界队列连接，内存占用与文件大小无关
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    /**
+     * 密码最小长度（与注册接口一致）
+     */
+    private static final int MIN_PASSWORD_LENGTH = 6;
+
+    private static final String INSERT_SQL = "INSERT INTO users (username, password, enabled) VALUES (?, ?, ?)";
+
+    /**
+     * 队列结束标记
+     */
+    private static final ImportRow END_OF_STREAM = new ImportRow(null, null, false);
+
+    /**
+     * 导入文件格式
+     */
+    public enum Format {
+        /**
+         * username,password[,enabled]，支持双引号转义，首行为表头时自动跳过
+         */
+        CSV,
+        /**
+         * 每行一个 JSON 对象：{"username":"..","password":"..","enabled":true}
+         */
+        JSONL
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final EnabledUserCounter enabledUserCounter;
+
+    /**
+     * 发布导入用户的 CREATED 事件（由 UserChangeBus 写入变更表并失效各节点的缓存）
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 每批 INSERT 的行数
+     */
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 哈希线程数，0 表示使用 CPU 核数
+     */
+    @Value("${app.import.hash-threads:0}")
+    private int hashThreads;
+
+    /**
+     * 阶段之间队列的容量
+     */
+    @Value("${app.import.queue-capacity:2000}")
+    private int queueCapacity;
+
+    /**
+     * 每写入多少行输出一次进度日志
+     */
+    @Value("${app.import.progress-interval:10000}")
+    private long progressInterval;
+
+    @Autowired
+    public UserImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             EnabledUserCounter enabledUserCounter,
+                             ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.enabledUserCounter = enabledUserCounter;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 从输入流导入用户
+     *
+     * @param input  输入流（UTF-8），由调用方负责关闭
+     * @param format 文件格式
+     * @return 导入报告
+     * @throws IOException 读取输入流失败
+     */
+    public ImportReport importUsers(InputStream input, Format format) throws IOException {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        BlockingQueue<ImportRow> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ImportRow> hashedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        ImportReport report = new ImportReport();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger activeHashers = new AtomicInteger(threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1, runnable -> {
+            Thread thread = new Thread(runnable, "user-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        try {
+            // 哈希阶段
+            for (int i = 0; i < threads; i++) {
+                executor.submit(() -> {
+                    try {
+                        runHashStage(parsedQueue, hashedQueue, report, failure);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        // 最后一个哈希线程结束时通知写入阶段
+                        if (activeHashers.decrementAndGet() == 0) {
+                            putUnlessFailed(hashedQueue, END_OF_STREAM, failure);
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            // 写入阶段
+            Future<?> writer = executor.submit(() -> {
+                try {
+                    runWriteStage(hashedQueue, report, failure);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+                return null;
+            });
+
+            // 读取阶段（调用线程）
+            try {
+                runReadStage(input, format, parsedQueue, report, failure);
+            } finally {
+                for (int i = 0; i < threads; i++) {
+                    putUnlessFailed(parsedQueue, END_OF_STREAM, failure);
+                }
+            }
+
+            awaitQuietly(writer);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report.totalNanos = System.nanoTime() - start;
+        Throwable error = failure.get();
+        if (error != null) {
+            report.error = error.getMessage();
+            logger.error("用户导入中止，已写入 {} 行", report.inserted.get(), error);
+        } else {
+            logger.info("用户导入完成: {}", report);
+        }
+        return report;
+    }
+
+    /**
+     * 读取阶段：逐行解析输入
+     */
+    private void runReadStage(InputStream input, Format format, BlockingQueue<ImportRow> parsedQueue,
+                              ImportReport report, AtomicReference<Throwable> failure) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while (failure.get() == null) {
+            long begin = System.nanoTime();
+            line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            lineNumber++;
+            ImportRow row = line.isBlank() ? null : parseLine(line, format, lineNumber);
+            report.readNanos.addAndGet(System.nanoTime() - begin);
+
+            if (row == null) {
+                if (!line.isBlank() && !(lineNumber == 1 && isCsvHeader(line, format))) {
+                    report.rejected.incrementAndGet();
+                }
+                continue;
+            }
+            report.read.incrementAndGet();
+            if (!putUnlessFailed(parsedQueue, row, failure)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 哈希阶段：计算密码哈希
+     */
+    private void runHashStage(BlockingQueue<ImportRow> parsedQueue, BlockingQueue<ImportRow> hashedQueue,
+                              ImportReport report, AtomicReference<Throwable> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            ImportRow row = parsedQueue.poll(100, TimeUnit.MILLISECONDS);
+            if (row == null) {
+                continue;
+            }
+            if (row == END_OF_STREAM) {
+                return;
+            }
+            long begin = System.nanoTime();
+            String hashed = UserService.hashPassword(row.password, row.username);
+            report.hashNanos.addAndGet(System.nanoTime() - begin);
+            if (!putUnlessFailed(hashedQueue, new ImportRow(row.username, hashed, row.enabled), failure)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写入阶段：按批次执行 JDBC 批量 INSERT
+     */
+    private void runWriteStage(BlockingQueue<ImportRow> hashedQueue, ImportReport report,
+                               AtomicReference<Throwable> failure) throws InterruptedException {
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        long nextProgress = progressInterval;
+        while (failure.get() == null) {
+            ImportRow row = hashedQueue.poll(100, TimeUnit.MILLISECONDS);
+            if (row == null) {
+                continue;
+            }
+            if (row != END_OF_STREAM) {
+                batch.add(row);
+                if (batch.size() < batchSize) {
+                    continue;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                long begin = System.nanoTime();
+                writeBatch(batch, report);
+                report.writeNanos.addAndGet(System.nanoTime() - begin);
+                report.batches.incrementAndGet();
+                batch.clear();
+
+                long written = report.inserted.get() + report.duplicates.get();
+                if (progressInterval > 0 && written >= nextProgress) {
+                    logger.info("用户导入进度: 已读取 {} 行，已写入 {} 行，重复 {} 行",
+                            report.read.get(), report.inserted.get(), report.duplicates.get());
+                    nextProgress = written + progressInterval;
+                }
+            }
+
+            if (row == END_OF_STREAM) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写入一批数据
+     * 整批在一个事务中执行；如果因为重复用户名失败，整批回滚后逐行重试，跳过已存在的用户。
+     * 写入的用户随批次发布 CREATED 事件：记录到变更表通知其他节点，提交后失效本节点的缓存
+     * （JDBC 写入绕过了 Hibernate，否则导入前缓存的"用户不存在"查询结果会在过期前一直生效），
+     * 导入过程中已写入的用户无需等整个导入结束即可登录
+     */
+    private void writeBatch(List<ImportRow> batch, ImportReport report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, row) -> {
+                    ps.setString(1, row.username);
+                    ps.setString(2, row.password);
+                    ps.setBoolean(3, row.enabled);
+                });
+                eventPublisher.publishEvent(createdEvent(batch));
+            });
+            report.inserted.addAndGet(batch.size());
+            enabledUserCounter.adjust(countEnabled(batch, report));
+            return;
+        } catch (DuplicateKeyException e) {
+            logger.debug("批量写入遇到重复用户名，改为逐行写入");
+        } catch (DataAccessException e) {
+            if (!(e.getMostSpecificCause() instanceof BatchUpdateException)) {
+                throw e;
+            }
+            logger.debug("批量写入失败，改为逐行写入: {}", e.getMessage());
+        }
+
+        List<ImportRow> inserted = new ArrayList<>(batch.size());
+        try {
+            for (ImportRow row : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, row.username, row.password, row.enabled);
+                    inserted.add(row);
+                    report.inserted.incrementAndGet();
+                    if (row.enabled) {
+                        report.insertedEnabled.incrementAndGet();
+                        enabledUserCounter.adjust(1);
+                    }
+                } catch (DuplicateKeyException e) {
+                    report.duplicates.incrementAndGet();
+                }
+            }
+        } finally {
+            // 逐行写入不在事务中，已提交的行立即记录变更并失效缓存
+            if (!inserted.isEmpty()) {
+                eventPublisher.publishEvent(createdEvent(inserted));
+            }
+        }
+    }
+
+    private static UserChangedEvent createdEvent(List<ImportRow> rows) {
+        List<String> usernames = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            usernames.add(row.username);
+        }
+        return new UserChangedEvent(UserChangeType.CREATED, usernames, false);
+    }
+
+    /**
+     * 统计一批数据中启用的用户数，并累加到报告中
+     *
+     * @return 启用的用户数
+     */
+    private static int countEnabled(List<ImportRow> batch, ImportReport report) {
+        int enabled = 0;
+        for (ImportRow row : batch) {
+            if (row.enabled) {
+                enabled++;
+            }
+        }
+        report.insertedEnabled.addAndGet(enabled);
+        return enabled;
+    }
+
+    /**
+     * 解析一行数据，格式不合法时返回 null
+     */
+    private ImportRow parseLine(String line, Format format, long lineNumber) {
+        String username;
+        String password;
+        boolean enabled = true;
+
+        if (format == Format.JSONL) {
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                username = node.path("username").asText(null);
+                password = node.path("password").asText(null);
+                if (node.hasNonNull("enabled")) {
+                    enabled = node.get("enabled").asBoolean(true);
+                }
+            } catch (IOException e) {
+                logger.warn("第 {} 行不是合法的 JSON，已跳过", lineNumber);
+                return null;
+            }
+        } else {
+            if (lineNumber == 1 && isCsvHeader(line, format)) {
+                return null;
+            }
+            List<String> fields = parseCsvLine(line);
+            if (fields.size() < 2) {
+                logger.warn("第 {} 行字段不足，已跳过", lineNumber);
+                return null;
+            }
+            username = fields.get(0);
+            password = fields.get(1);
+            if (fields.size() > 2 && !fields.get(2).isBlank()) {
+                String value = fields.get(2).trim();
+                enabled = "1".equals(value) || Boolean.parseBoolean(value);
+            }
+        }
+
+        // 与注册接口保持一致的校验规则：用户名 2-50 个字符，密码非空白且至少 6 个字符
+        if (username == null || username.trim().length() < 2 || username.trim().length() > 50
+                || password == null || password.trim().isEmpty() || password.length() < MIN_PASSWORD_LENGTH) {
+            logger.warn("第 {} 行用户名或密码不合法，已跳过", lineNumber);
+            return null;
+        }
+        return new ImportRow(username.trim(), password, enabled);
+    }
+
+    private static boolean isCsvHeader(String line, Format format) {
+        return format == Format.CSV && line.trim().toLowerCase().startsWith("username");
+    }
+
+    /**
+     * 解析 CSV 行，支持双引号包裹字段以及 "" 转义
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * 放入队列；在其他阶段失败时放弃等待
+     *
+     * @return 是否放入成功
+     */
+    private static boolean putUnlessFailed(BlockingQueue<ImportRow> queue, ImportRow row,
+                                           AtomicReference<Throwable> failure) {
+        try {
+            while (failure.get() == null) {
+                if (queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        return false;
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+            // 写入阶段的异常已记录在 failure 中
+        }
+    }
+
+    /**
+     * 流水线中传递的一行数据
+     */
+    private static final class ImportRow {
+        private final String username;
+        private final String password;
+        private final boolean enabled;
+
+        private ImportRow(String username, String password, boolean enabled) {
+            this.username = username;
+            this.password = password;
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * 导入报告：各阶段计数与耗时
+     */
+    public static class ImportReport {
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong insertedEnabled = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong readNanos = new AtomicLong();
+        private final AtomicLong hashNanos = new AtomicLong();
+        private final AtomicLong writeNanos = new AtomicLong();
+        private long totalNanos;
+        private String error;
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getRead() {
+            return read.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public long getInserted() {
+            return inserted.get();
+        }
+
+        public long getInsertedEnabled() {
+            return insertedEnabled.get();
+        }
+
+        public long getDuplicates() {
+            return duplicates.get();
+        }
+
+        public long getBatches() {
+            return batches.get();
+        }
+
+        public long getReadMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(readNanos.get());
+        }
+
+        /**
+         * 所有哈希线程耗时之和
+         */
+        public long getHashMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(hashNanos.get());
+        }
+
+        public long getWriteMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(writeNanos.get());
+        }
+
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "ImportReport{" +
+                    "read=" + read +
+                    ", rejected=" + rejected +
+                    ", inserted=" + inserted +
+                    ", duplicates=" + duplicates +
+                    ", batches=" + batches +
+                    ", readMillis=" + getReadMillis() +
+                    ", hashMillis=" + getHashMillis() +
+                    ", writeMillis=" + getWriteMillis() +
+                    ", totalMillis=" + getTotalMillis() +
+                    '}';
+        }
+    }
+}
@@ -1,15 +1,44 @@
 package com.lxq.learn.service;
 
+import com.lxq.learn.admission.AdmissionControlled;
+import com.lxq.learn.admission.AdmissionController;
+import com.lxq.learn.config.ServiceAccountRealm;
 import com.lxq.learn.entity.User;
+import com.lxq.learn.invalidation.UserChangeType;
+import com.lxq.learn.invalidation.UserChangedEvent;
 import com.lxq.learn.repository.UserRepository;
+import com.lxq.learn.repository.UserRepository.UserSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.shiro.crypto.hash.SimpleHash;
 import org.apache.shiro.lang.util.ByteSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * 用户服务层
@@ -20,6 +49,8 @@ import java.util.Optional;
 @Transactional
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
 
     /**
@@ -32,33 +63,155 @@ public class UserService {
      */
     private static final int HASH_ITERATIONS = 1024;
 
+    /**
+     * MySQL 主键/唯一键冲突错误码（ER_DUP_ENTRY）
+     */
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
+    /**
+     * SQL 标准唯一约束冲突状态码
+     */
+    private static final String SQL_STATE_UNIQUE_VIOLATION = "23505";
+
+    private final EnabledUserCounter enabledUserCounter;
+
+    /**
+     * 发布用户变更事件（由 UserChangeBus 写入变更表并失效各节点的缓存）
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 启用用户查询只对实际查询数据库的线程做准入控制
+     */
+    private final AdmissionController admissionController;
+
+    /**
+     * 正在执行中的启用用户查询（按用户名合并并发的相同查询）
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<User>>> inFlightLookups = new ConcurrentHashMap<>();
+
+    /**
+     * 等待其他线程查询结果的最长时间（毫秒），超时后自行查询
+     */
+    private final long singleFlightMaxWaitMillis;
+
+    private final Counter leaderLookups;
+
+    private final Counter deduplicatedLookups;
+
+    private final Counter timedOutLookups;
+
+    /**
+     * 服务账号 Realm（未启用时为空），注册时保留服务账号的用户名
+     */
+    private ServiceAccountRealm serviceAccountRealm;
+
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+                       EnabledUserCounter enabledUserCounter,
+                       ApplicationEventPublisher eventPublisher,
+                       AdmissionController admissionController,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.users.lookup.single-flight.max-wait-ms:2000}") long singleFlightMaxWaitMillis) {
         this.userRepository = userRepository;
+        this.enabledUserCounter = enabledUserCounter;
+        this.eventPublisher = eventPublisher;
+        this.admissionController = admissionController;
+        this.singleFlightMaxWaitMillis = singleFlightMaxWaitMillis;
+        this.leaderLookups = singleFlightCounter(meterRegistry, "leader");
+        this.deduplicatedLookups = singleFlightCounter(meterRegistry, "deduplicated");
+        this.timedOutLookups = singleFlightCounter(meterRegistry, "timeout");
+    }
+
+    @Autowired(required = false)
+    public void setServiceAccountRealm(ServiceAccountRealm serviceAccountRealm) {
+        this.serviceAccountRealm = serviceAccountRealm;
+    }
+
+    private static Counter singleFlightCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("app.users.lookup.single-flight")
+                .description("启用用户查询的合并情况：leader=实际查询，deduplicated=复用进行中的查询，timeout=等待超时后自行查询")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     /**
      * 根据用户名查找用户
      * 用于 Shiro 认证过程
+     * 用户名是主键，按主键查找可以命中二级缓存
      *
      * @param username 用户名
      * @return 用户信息（可能为空）
      */
     @Transactional(readOnly = true)
+    @AdmissionControlled
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userRepository.findById(username);
     }
 
     /**
      * 根据用户名查找启用状态的用户
      * 确保只有启用的账户才能登录
+     * 同一用户名的并发查询只执行一次（single-flight）：第一个线程查询数据库，
+     * 其他线程等待并复用其结果（拿到的是游离副本），最长等待 max-wait-ms 后自行查询；
+     * 方法本身不开启事务，等待期间不占用数据库连接，查询在仓库自身的只读事务中执行；
+     * 只有实际查询数据库的线程占用准入名额，等待结果的线程不占用
      *
      * @param username 用户名
      * @return 启用状态的用户信息（可能为空）
+     * @throws com.lxq.learn.admission.ServiceOverloadedException 实际查询时并发数超过准入上限
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<User> findEnabledUserByUsername(String username) {
-        return userRepository.findByUsernameAndEnabled(username);
+        CompletableFuture<Optional<User>> lookup = new CompletableFuture<>();
+        CompletableFuture<Optional<User>> inFlight = inFlightLookups.putIfAbsent(username, lookup);
+
+        if (inFlight == null) {
+            // 当前线程负责查询
+            leaderLookups.increment();
+            try {
+                Optional<User> result = queryEnabledUser(username);
+                lookup.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                lookup.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlightLookups.remove(username, lookup);
+            }
+        }
+
+        // 复用进行中的查询
+        deduplicatedLookups.increment();
+        try {
+            return inFlight.get(singleFlightMaxWaitMillis, TimeUnit.MILLISECONDS).map(User::detachedCopy);
+        } catch (TimeoutException e) {
+            timedOutLookups.increment();
+            return queryEnabledUser(username);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("查询用户失败：" + username, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待用户查询结果时被中断：" + username, e);
+        }
+    }
+
+    private Optional<User> queryEnabledUser(String username) {
+        return admissionController.execute(() -> userRepository.findByUsernameAndEnabled(username));
+    }
+
+    /**
+     * 丢弃指定用户进行中的启用用户查询
+     * 用户变更提交后调用：之后到达的查询不再复用变更前就已开始的查询结果，而是重新查询
+     *
+     * @param username 用户名
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void forgetInFlightLookup(String username) {
+        inFlightLookups.remove(username);
     }
 
     /**
@@ -82,27 +235,120 @@ public class UserService {
         return hashedInput.equals(user.getPassword());
     }
 
+    /**
+     * 批量校验用户凭证
+     * 供内部服务使用：一次 IN 查询取回所有候选用户，再利用多核并行计算密码哈希
+     * 不经过 Shiro Subject，因此不会创建 Session；返回结果与输入顺序一一对应
+     * 不开启事务，避免在计算哈希期间占用数据库连接；与登录一样受准入控制
+     *
+     * @param credentials 待校验的用户名/密码对
+     * @return 校验结果列表（与输入顺序一致）
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @AdmissionControlled
+    public List<CredentialCheckResult> verifyCredentials(List<Credential> credentials) {
+        if (credentials == null || credentials.isEmpty()) {
+            return List.of();
+        }
+
+        // 1. 收集去重后的用户名，一次性查询
+        Set<String> usernames = new HashSet<>();
+        for (Credential credential : credentials) {
+            if (credential != null && credential.getUsername() != null) {
+                usernames.add(credential.getUsername());
+            }
+        }
+
+        Map<String, User> usersByName = new HashMap<>();
+        if (!usernames.isEmpty()) {
+            for (User user : userRepository.findByUsernameIn(usernames)) {
+                usersByName.put(user.getUsername(), user);
+            }
+        }
+
+        // 2. 并行校验密码（与登录保持一致：只有启用的账户才算通过）
+        return IntStream.range(0, credentials.size())
+                .parallel()
+                .mapToObj(i -> {
+                    Credential credential = credentials.get(i);
+                    if (credential == null || credential.getUsername() == null) {
+                        return new CredentialCheckResult(null, false);
+                    }
+                    User user = usersByName.get(credential.getUsername());
+                    boolean valid = user != null
+                            && user.isAccountNonLocked()
+                            && verifyPassword(user, credential.getPassword());
+                    return new CredentialCheckResult(credential.getUsername(), valid);
+                })
+                .toList();
+    }
+
     /**
      * 创建新用户
      * 自动对密码进行加密处理
+     * 直接 INSERT，由主键约束保证用户名唯一，不再预先查询用户名是否存在
+     * 在独立的新事务中执行：主键冲突只回滚这个事务，调用方已有的事务不会因此被标记为只能回滚，
+     * 可以安全地捕获"用户名已存在"的异常后继续
      *
      * @param username    用户名
      * @param rawPassword 原始密码
      * @param enabled     是否启用
      * @return 创建的用户
      */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @AdmissionControlled
     public User createUser(String username, String rawPassword, Boolean enabled) {
-        // 检查用户名是否已存在
-        if (userRepository.existsByUsername(username)) {
-            throw new IllegalArgumentException("用户名 '" + username + "' 已存在");
+        try {
+            return insertUser(username, rawPassword, enabled);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateKey(e)) {
+                throw new IllegalArgumentException("用户名 '" + username + "' 已存在");
+            }
+            throw e;
         }
+    }
 
+    /**
+     * 插入新用户
+     * User 实现了 Persistable，新建实体会直接 persist，saveAndFlush 立即执行 INSERT，
+     * 使主键冲突在此处抛出，而不是延迟到事务提交时
+     *
+     * @param username    用户名
+     * @param rawPassword 原始密码
+     * @param enabled     是否启用
+     * @return 创建的用户
+     */
+    private User insertUser(String username, String rawPassword, Boolean enabled) {
         // 加密密码
         String hashedPassword = hashPassword(rawPassword, username);
 
         // 创建用户
-        User user = new User(username, hashedPassword, enabled);
-        return userRepository.save(user);
+        User user = userRepository.saveAndFlush(new User(username, hashedPassword, enabled));
+        if (user.isAccountNonLocked()) {
+            enabledUserCounter.adjust(1);
+        }
+        // 其他节点可能缓存了"用户不存在"的查询结果
+        eventPublisher.publishEvent(UserChangedEvent.of(UserChangeType.CREATED, username));
+        return user;
+    }
+
+    /**
+     * 判断数据完整性异常是否由主键/唯一键冲突引起
+     *
+     * @param e 数据完整性异常
+     * @return 是否为重复键冲突
+     */
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                return sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY
+                        || SQL_STATE_UNIQUE_VIOLATION.equals(sqlException.getSQLState());
+            }
+        }
+        return false;
     }
 
     /**
@@ -112,13 +358,15 @@ public class UserService {
      * @param newPassword 新密码
      * @return 是否更新成功
      */
+    @AdmissionControlled
     public boolean updatePassword(String username, String newPassword) {
-        Optional<User> userOpt = userRepository.findByUsername(username);
+        Optional<User> userOpt = userRepository.findById(username);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             String hashedPassword = hashPassword(newPassword, username);
             user.setPassword(hashedPassword);
             userRepository.save(user);
+            eventPublisher.publishEvent(UserChangedEvent.of(UserChangeType.PASSWORD_CHANGED, username));
             return true;
         }
         return false;
@@ -126,51 +374,121 @@ public class UserService {
 
     /**
      * 启用或禁用用户账户
+     * 通过实体修改状态，只更新该用户的二级缓存条目；批量 JPQL UPDATE 会清空整个 users 区域
      *
      * @param username 用户名
      * @param enabled  启用状态
      * @return 是否操作成功
      */
+    @AdmissionControlled
     public boolean updateUserStatus(String username, Boolean enabled) {
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            user.setEnabled(enabled);
-            userRepository.save(user);
-            return true;
+        // 加行锁读取：并发的两次禁用串行执行，只有第一次看到状态变化，计数只调整一次
+        Optional<User> userOpt = userRepository.findByUsernameForUpdate(username);
+        if (userOpt.isEmpty()) {
+            return false;
         }
-        return false;
+        User user = userOpt.get();
+        boolean target = Boolean.TRUE.equals(enabled);
+        if (Boolean.TRUE.equals(user.getEnabled()) != target) {
+            user.setEnabled(target);
+            enabledUserCounter.adjust(target ? 1 : -1);
+            eventPublisher.publishEvent(UserChangedEvent.of(
+                    target ? UserChangeType.ENABLED : UserChangeType.DISABLED, username));
+        }
+        return true;
+    }
+
+    /**
+     * 批量启用或禁用用户账户
+     * 按 chunkSize 分段执行 UPDATE ... WHERE username IN (...)，所有分段在同一个事务中提交；
+     * 不加载实体，启用用户数按实际变化的行数调整
+     * 本节点缓存和 Session 的失效由调用方在事务提交后处理（见 AccountStatusService），这里只通知其他节点
+     *
+     * @param usernames 用户名（已去重）
+     * @param enabled   目标启用状态
+     * @param chunkSize 每条 UPDATE 的用户名数量
+     * @return 状态发生变化的用户数
+     */
+    @AdmissionControlled
+    public int bulkUpdateUserStatus(List<String> usernames, boolean enabled, int chunkSize) {
+        int affected = 0;
+        for (int from = 0; from < usernames.size(); from += chunkSize) {
+            List<String> chunk = usernames.subList(from, Math.min(from + chunkSize, usernames.size()));
+            affected += userRepository.updateEnabledByUsernameIn(chunk, enabled);
+        }
+        enabledUserCounter.adjust(enabled ? affected : -affected);
+        if (affected > 0) {
+            eventPublisher.publishEvent(new UserChangedEvent(
+                    enabled ? UserChangeType.ENABLED : UserChangeType.DISABLED, usernames, true));
+        }
+        return affected;
     }
 
     /**
      * 获取所有启用的用户
+     * 会一次性加载全部实体，用户量大时请使用 findEnabledUsersAfter 或 forEachEnabledUser
      *
      * @return 启用用户列表
      */
     @Transactional(readOnly = true)
+    @AdmissionControlled
     public List<User> findAllEnabledUsers() {
         return userRepository.findByEnabledOrderByUsername(true);
     }
 
+    /**
+     * 按用户名游标分页获取启用的用户摘要
+     *
+     * @param cursor 上一页最后一个用户名，null 或空字符串表示第一页
+     * @param limit  每页数量
+     * @return 当前页的用户摘要（按用户名升序）
+     */
+    @Transactional(readOnly = true)
+    @AdmissionControlled
+    public List<UserSummary> findEnabledUsersAfter(String cursor, int limit) {
+        return userRepository.findSummariesByEnabledAfter(true, cursor == null ? "" : cursor, PageRequest.of(0, limit));
+    }
+
+    /**
+     * 以只读流的方式遍历所有启用的用户摘要
+     * 结果按 fetch size 分批从数据库读取，不会一次性加载到内存（MySQL 依赖连接 URL 中的 useCursorFetch=true）
+     *
+     * @param consumer 每个用户摘要的处理逻辑
+     * @return 遍历的用户数量
+     */
+    @Transactional(readOnly = true)
+    public long forEachEnabledUser(Consumer<UserSummary> consumer) {
+        long count = 0;
+        try (Stream<UserSummary> stream = userRepository.streamSummariesByEnabled(true)) {
+            for (UserSummary summary : (Iterable<UserSummary>) stream::iterator) {
+                consumer.accept(summary);
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * 获取用户总数统计
+     * 读取内存中的计数器，不访问数据库
      *
      * @return 启用用户数量
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getEnabledUserCount() {
-        return userRepository.countEnabledUsers();
+        return enabledUserCounter.get();
     }
 
     /**
      * 密码加密工具方法
      * 使用 Shiro 提供的加密算法
+     * 声明为静态方法，批量导入等场景可以直接调用，不经过事务代理
      *
      * @param password 原始密码
      * @param salt     盐值
      * @return 加密后的密码
      */
-    private String hashPassword(String password, String salt) {
+    public static String hashPassword(String password, String salt) {
         return new SimpleHash(
                 HASH_ALGORITHM,
                 password,
@@ -216,11 +534,15 @@ public class UserService {
     /**
      * 用户注册方法
      * 专门用于用户注册，包含完整的验证逻辑
+     * 不在外层开启事务：INSERT 在仓库自身的事务中执行，主键冲突只回滚该事务，
+     * 可以安全地转换为"用户名已存在"的结果，同时避免计算密码哈希时占用数据库连接
      *
      * @param username 用户名
      * @param password 原始密码
      * @return 注册结果信息
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @AdmissionControlled
     public RegisterResult registerUser(String username, String password) {
         try {
             // 1. 验证用户名格式
@@ -241,18 +563,24 @@ public class UserService {
                 return new RegisterResult(false, "密码长度至少6个字符");
             }
 
-            // 3. 检查用户名是否已存在
-            if (userRepository.existsByUsername(username.trim())) {
+            // 3. 服务账号的用户名保留，不允许注册同名用户（与重名返回相同结果，不暴露服务账号）
+            if (serviceAccountRealm != null && serviceAccountRealm.isServiceAccount(username.trim())) {
                 return new RegisterResult(false, "用户名已存在，请选择其他用户名");
             }
 
-            // 4. 创建用户（自动加密密码）
-            User user = createUser(username.trim(), password, true);
+            // 4. 创建用户（自动加密密码），用户名唯一性由主键约束保证
+            User user = insertUser(username.trim(), password, true);
 
             return new RegisterResult(true, "注册成功", user.getUsername());
 
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateKey(e)) {
+                return new RegisterResult(false, "用户名已存在，请选择其他用户名");
+            }
+            logger.error("用户注册失败，违反数据约束: {}", username, e);
+            return new RegisterResult(false, "注册过程中发生错误，请稍后重试");
         } catch (Exception e) {
-            System.err.println("用户注册失败：" + e.getMessage());
+            logger.error("用户注册失败: {}", username, e);
             return new RegisterResult(false, "注册过程中发生错误，请稍后重试");
         }
     }
@@ -289,4 +617,46 @@ public class UserService {
             return username;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 待校验的凭证（用户名/密码对）
+     */
+    public static class Credential {
+        private final String username;
+        private final String password;
+
+        public Credential(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+    }
+
+    /**
+     * 凭证校验结果封装类
+     */
+    public static class CredentialCheckResult {
+        private final String username;
+        private final boolean valid;
+
+        public CredentialCheckResult(String username, boolean valid) {
+            this.username = username;
+            this.valid = valid;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- 创建 login_audit 表的 SQL 脚本
+-- 记录每一次登录的结果、客户端 IP 和 User-Agent，由 LoginAuditService 批量写入
+
+CREATE TABLE IF NOT EXISTS login_audit (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    occurred_at DATETIME(6) NOT NULL COMMENT '登录时间',
+    username VARCHAR(50) NULL COMMENT '登录时提交的用户名',
+    outcome VARCHAR(32) NOT NULL COMMENT '登录结果',
+    ip VARCHAR(64) NULL COMMENT '客户端 IP',
+    user_agent VARCHAR(255) NULL COMMENT '客户端 User-Agent'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='登录审计表';
+
+-- 创建索引
+CREATE INDEX idx_login_audit_username ON login_audit(username, occurred_at) COMMENT '按用户查询登录记录';
+CREATE INDEX idx_login_audit_occurred_at ON login_audit(occurred_at) COMMENT '按时间范围查询和清理';
@@ -0,0 +1,13 @@
+-- 创建 user_change_log 表的 SQL 脚本
+-- 多节点部署时的缓存/Session 失效通知：修改用户的事务中写入，各节点由 UserChangeBus 按 id 轮询
+
+CREATE TABLE IF NOT EXISTS user_change_log (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    username VARCHAR(50) NOT NULL COMMENT '发生变更的用户名',
+    change_type VARCHAR(32) NOT NULL COMMENT '变更类型',
+    node_id VARCHAR(64) NOT NULL COMMENT '发布变更的节点 ID',
+    created_at_ms BIGINT NOT NULL COMMENT '发布时间（毫秒时间戳）'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户变更通知表';
+
+-- 创建索引
+CREATE INDEX idx_user_change_log_created_at ON user_change_log(created_at_ms) COMMENT '清理过期记录';
@@ -0,0 +1,126 @@
+package com.lxq.learn.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 读写分离路由测试
+ * 主库和从库分别是两个内嵌 H2 数据库，各自写入一行标记，通过查询标记判断 SQL 实际路由到了哪个库
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    /**
+     * 从库获取连接的超时（毫秒），与 application.yml 中的 app.datasource.replica.connection-timeout 同一量级
+     */
+    private static final long REPLICA_CONNECTION_TIMEOUT_MS = 250;
+
+    private HikariDataSource primary;
+
+    private HikariDataSource replica;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private TransactionTemplate readWriteTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = pool("primary", 2, 30000);
+        replica = pool("replica", 1, REPLICA_CONNECTION_TIMEOUT_MS);
+        mark(primary, "primary");
+        mark(replica, "replica");
+
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replica, 1, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentDatabase()));
+        assertEquals("primary", readWriteTransaction.execute(status -> currentDatabase()));
+        assertEquals("primary", currentDatabase());
+        assertTrue(routingDataSource.isReplicaHealthy());
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaTimesOutAndRecovers() throws Exception {
+        // 占用从库唯一的连接，模拟从库连接池耗尽 / 从库无响应
+        try (Connection ignored = replica.getConnection()) {
+            long start = System.nanoTime();
+            assertEquals("primary", readOnlyTransaction.execute(status -> currentDatabase()));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(elapsedMillis < REPLICA_CONNECTION_TIMEOUT_MS + 2000,
+                    "回退应在从库连接超时后立即发生，实际耗时 " + elapsedMillis + "ms");
+            assertFalse(routingDataSource.isReplicaHealthy());
+            assertEquals(1.0, meterRegistry.get("app.datasource.replica.fallbacks").counter().count());
+
+            // 从库被标记为不可用后，只读事务直接走主库，不再等待从库超时
+            long before = System.nanoTime();
+            assertEquals("primary", readOnlyTransaction.execute(status -> currentDatabase()));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - before) < REPLICA_CONNECTION_TIMEOUT_MS);
+        }
+
+        // 从库恢复后由健康检查重新启用读路由
+        routingDataSource.checkReplicaHealth();
+        assertTrue(routingDataSource.isReplicaHealthy());
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentDatabase()));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM db_marker", String.class);
+    }
+
+    private static HikariDataSource pool(String name, int maxPoolSize, long connectionTimeoutMillis) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:routing-" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setPoolName("test-" + name);
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setConnectionTimeout(connectionTimeoutMillis);
+        return new HikariDataSource(config);
+    }
+
+    private static void mark(DataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE db_marker (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO db_marker (name) VALUES (?)", name);
+    }
+}
@@ -0,0 +1,49 @@
+package com.lxq.learn.config;
+
+import org.apache.shiro.config.Ini;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 服务账号 Realm 授权测试
+ * 服务账号的角色只授予本 Realm 认证的身份，其他 Realm 认证的同名用户不能获得
+ */
+class ServiceAccountRealmTest {
+
+    private ServiceAccountRealm realm;
+
+    @BeforeEach
+    void setUp() {
+        Ini ini = new Ini();
+        ini.setSectionProperty("users", "gateway", "secret, service");
+        realm = new ServiceAccountRealm();
+        realm.setName("service-accounts");
+        realm.setIni(ini);
+        realm.init();
+    }
+
+    @Test
+    void grantsRolesToOwnPrincipals() {
+        PrincipalCollection principals = new SimplePrincipalCollection("gateway", "service-accounts");
+
+        assertTrue(realm.hasRole(principals, "service"));
+    }
+
+    @Test
+    void ignoresSameNamedPrincipalFromOtherRealm() {
+        PrincipalCollection principals = new SimplePrincipalCollection("gateway", "users");
+
+        assertFalse(realm.hasRole(principals, "service"));
+    }
+
+    @Test
+    void reservesServiceAccountNames() {
+        assertTrue(realm.isServiceAccount("gateway"));
+        assertFalse(realm.isServiceAccount("admin"));
+    }
+}
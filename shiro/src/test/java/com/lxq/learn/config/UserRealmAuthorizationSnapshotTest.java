@@ -0,0 +1,97 @@
+package com.lxq.learn.config;
+
+import jakarta.servlet.http.Cookie;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 请求级授权快照测试
+ * 同一个请求内多次调用 hasRole / isPermitted，Realm 的 doGetAuthorizationInfo 只应执行一次
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:realm-snapshot;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.security.authorization-cache.enabled=false"
+})
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+@Import(UserRealmAuthorizationSnapshotTest.AuthorizationChecksController.class)
+class UserRealmAuthorizationSnapshotTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void resolvesAuthorizationInfoOncePerRequest() throws Exception {
+        Cookie session = login("admin");
+
+        mockMvc.perform(get("/test/authorization-checks").cookie(session))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.admin").value(true))
+                .andExpect(jsonPath("$.write").value(true))
+                .andExpect(jsonPath("$.realmInvocations").value(1));
+    }
+
+    @Test
+    void eachRequestResolvesItsOwnSnapshot() throws Exception {
+        Cookie session = login("user");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/test/authorization-checks").cookie(session))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.admin").value(false))
+                    .andExpect(jsonPath("$.realmInvocations").value(1));
+        }
+    }
+
+    private Cookie login(String username) throws Exception {
+        MvcResult result = mockMvc.perform(post("/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"123456\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andReturn();
+        Cookie session = result.getResponse().getCookie("JSESSIONID");
+        assertNotNull(session, "登录后应返回 Session Cookie");
+        return session;
+    }
+
+    /**
+     * 在一个请求内多次做授权判断，并返回本请求中 Realm 授权查询的次数
+     */
+    @RestController
+    static class AuthorizationChecksController {
+
+        @GetMapping("/test/authorization-checks")
+        public Map<String, Object> check() {
+            Subject subject = SecurityUtils.getSubject();
+            Map<String, Object> result = new HashMap<>();
+            result.put("admin", subject.hasRole("admin"));
+            result.put("user", subject.hasRole("user"));
+            result.put("read", subject.isPermitted("user:read"));
+            result.put("write", subject.isPermitted("user:write"));
+            result.put("delete", subject.isPermitted("user:delete"));
+            result.put("realmInvocations", UserRealm.getAuthorizationInvocationCount());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.lxq.learn.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 接口内存分配预算测试
+ * 以 embedded（H2）+ prod 配置启动应用，通过 MockMvc（带上 Shiro 过滤器）在当前线程中发起请求，
+ * 用线程分配计数器（ThreadMXBean.getCurrentThreadAllocatedBytes）统计每个请求分配的字节数，
+ * 超过 allocation-budgets.properties 中的预算时测试失败
+ *
+ * 统计值包含 MockMvc 构造请求/响应对象的固定开销，只统计请求线程（异步日志线程等不计入）；
+ * 每个接口先预热，再测量多轮，取每轮平均值中的最小值以降低噪声
+ *
+ * 随 mvn verify 一起执行；本地需要跳过时使用 -DexcludedGroups=allocation
+ *
+ * 系统属性：
+ * - alloc.warmup：每个接口的预热请求数，默认 3000
+ * - alloc.iterations：每轮测量的请求数，默认 1000
+ * - alloc.rounds：测量轮数，默认 5
+ * - alloc.budget.&lt;接口&gt;：覆盖预算（字节），如 -Dalloc.budget.public=40000
+ * - alloc.results：结果文件路径，默认 target/allocation-results.json
+ */
+@Tag("allocation")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:allocation-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "logging.config=classpath:logback-spring.xml"
+})
+@ActiveProfiles({"embedded", "prod"})
+@AutoConfigureMockMvc
+class AllocationBudgetTest {
+
+    private static final String BUDGETS_RESOURCE = "allocation-budgets.properties";
+
+    private static final String PASSWORD = "123456";
+
+    private static final int WARMUP = Integer.getInteger("alloc.warmup", 3000);
+
+    private static final int ITERATIONS = Integer.getInteger("alloc.iterations", 1000);
+
+    private static final int ROUNDS = Integer.getInteger("alloc.rounds", 5);
+
+    private static final List<Map<String, Object>> results = new ArrayList<>();
+
+    private static Properties budgets;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Cookie adminSession;
+
+    @BeforeAll
+    static void enableAllocationCounting() throws Exception {
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threadMXBean.isThreadAllocatedMemorySupported(), "当前 JVM 不支持线程分配计数");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        budgets = loadBudgets();
+    }
+
+    @BeforeEach
+    void loginAsAdmin() throws Exception {
+        adminSession = login("admin");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"public", "protected", "user-info", "admin", "login-success", "login-failure"})
+    void staysWithinAllocationBudget(String endpoint) throws Exception {
+        Supplier<RequestBuilder> request = request(endpoint);
+        long budget = Long.getLong("alloc.budget." + endpoint,
+                Long.parseLong(budgets.getProperty(endpoint, String.valueOf(Long.MAX_VALUE)).trim()));
+
+        perform(request, WARMUP);
+        long bytesPerRequest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threadMXBean.getCurrentThreadAllocatedBytes();
+            perform(request, ITERATIONS);
+            long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+            bytesPerRequest = Math.min(bytesPerRequest, allocated / ITERATIONS);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoint", endpoint);
+        result.put("bytesPerRequest", bytesPerRequest);
+        result.put("budget", budget);
+        result.put("withinBudget", bytesPerRequest <= budget);
+        results.add(result);
+
+        assertTrue(bytesPerRequest <= budget, endpoint + " 每个请求分配 " + bytesPerRequest
+                + " 字节，超出预算 " + budget + " 字节（预算见 " + BUDGETS_RESOURCE + "）");
+    }
+
+    @AfterAll
+    static void writeResults() throws Exception {
+        Path path = Paths.get(System.getProperty("alloc.results", "target/allocation-results.json"));
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), results);
+    }
+
+    private Supplier<RequestBuilder> request(String endpoint) {
+        return switch (endpoint) {
+            case "public" -> () -> get("/public");
+            case "protected" -> () -> get("/protected").cookie(adminSession);
+            case "user-info" -> () -> get("/user-info").cookie(adminSession);
+            case "admin" -> () -> get("/admin").cookie(adminSession);
+            case "login-success" -> () -> loginRequest("user", PASSWORD);
+            case "login-failure" -> () -> loginRequest("user", "wrong-password");
+            default -> throw new IllegalArgumentException("未知接口: " + endpoint);
+        };
+    }
+
+    private static RequestBuilder loginRequest(String username, String password) {
+        return post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}");
+    }
+
+    private Cookie login(String username) throws Exception {
+        MvcResult result = mockMvc.perform(loginRequest(username, PASSWORD))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andReturn();
+        Cookie session = result.getResponse().getCookie("JSESSIONID");
+        assertNotNull(session, "登录后应返回 Session Cookie");
+        return session;
+    }
+
+    private void perform(Supplier<RequestBuilder> request, int times) throws Exception {
+        for (int i = 0; i < times; i++) {
+            mockMvc.perform(request.get());
+        }
+    }
+
+    private static Properties loadBudgets() throws Exception {
+        Properties properties = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getClassLoader().getResourceAsStream(BUDGETS_RESOURCE)) {
+            assertNotNull(in, "缺少预算配置: " + BUDGETS_RESOURCE);
+            properties.load(in);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,249 @@
+package com.lxq.learn.invalidation;
+
+import com.lxq.learn.LearnApplication;
+import com.lxq.learn.service.AccountStatusService;
+import com.lxq.learn.service.UserImportService;
+import com.lxq.learn.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.cache.CacheManager;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 跨节点失效传播测试
+ * 在同一个 JVM 中启动两个应用实例（节点 A、B，embedded + prod 配置，共享同一个 H2 内存库，开启失效总线），
+ * 在节点 A 上修改用户，断言节点 B 在预算时间内从变更表读到变更并生效
+ *
+ * Session 保存在各节点内存中，二级缓存由各节点独立的 CacheManager 持有（见 SecondLevelCacheConfig），
+ * 节点 B 只有读到变更记录并失效本地缓存后才能看到节点 A 的修改，关闭失效总线时这些用例会失败；
+ * 改密、新建和导入用户用例同时断言节点 B 确实接收了变更记录
+ *
+ * 系统属性：
+ * - invalidation.poll-interval-ms：两个节点的变更表轮询间隔，默认 200
+ * - invalidation.budget-ms：允许的最大传播耗时，默认 2000
+ */
+class InvalidationPropagationTest {
+
+    private static final String PASSWORD = "123456";
+
+    private static final String SESSION_COOKIE = "JSESSIONID";
+
+    private static final long POLL_INTERVAL_MS = Long.getLong("invalidation.poll-interval-ms", 200);
+
+    private static final long BUDGET_MS = Long.getLong("invalidation.budget-ms", 2000);
+
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private static ConfigurableApplicationContext nodeA;
+
+    private static ConfigurableApplicationContext nodeB;
+
+    private static UserService userServiceA;
+
+    private static String baseUrlB;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        // 节点 A 建表并初始化测试数据，节点 B 直接使用已有的表
+        nodeA = startNode("node-a", true);
+        nodeB = startNode("node-b", false);
+        userServiceA = nodeA.getBean(UserService.class);
+        assertNotSame(nodeA.getBean(CacheManager.class), nodeB.getBean(CacheManager.class), "两个节点不应共享二级缓存");
+        baseUrlB = baseUrl(nodeB);
+        // 节点 B 第一次轮询时以当前最大 id 为起点，之前写入的记录不会重放
+        Thread.sleep(POLL_INTERVAL_MS * 3);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void disablingOneUserStopsSessionsOnOtherNode() throws Exception {
+        String session = login("user", PASSWORD);
+        assertTrue(isAuthenticated(session));
+
+        long start = System.nanoTime();
+        assertTrue(userServiceA.updateUserStatus("user", false));
+        awaitWithinBudget(start, () -> !isAuthenticated(session), "节点 B 的会话未失效");
+        assertNull(tryLogin("user", PASSWORD), "禁用后节点 B 不应允许登录");
+
+        assertTrue(userServiceA.updateUserStatus("user", true));
+        awaitWithinBudget(System.nanoTime(), () -> tryLogin("user", PASSWORD) != null, "重新启用后节点 B 仍无法登录");
+    }
+
+    @Test
+    void bulkStatusChangeStopsSessionsOnOtherNode() throws Exception {
+        AccountStatusService accountStatusA = nodeA.getBean(AccountStatusService.class);
+        String userSession = login("user", PASSWORD);
+        String testSession = login("test", PASSWORD);
+
+        long start = System.nanoTime();
+        accountStatusA.changeStatus(List.of("user", "test"), false);
+        awaitWithinBudget(start, () -> !isAuthenticated(userSession) && !isAuthenticated(testSession),
+                "批量禁用后节点 B 的会话未全部失效");
+
+        accountStatusA.changeStatus(List.of("user", "test"), true);
+        awaitWithinBudget(System.nanoTime(),
+                () -> tryLogin("user", PASSWORD) != null && tryLogin("test", PASSWORD) != null,
+                "批量启用后节点 B 仍无法登录");
+    }
+
+    @Test
+    void passwordChangeReachesOtherNode() throws Exception {
+        login("test", PASSWORD);
+        double received = received();
+
+        long start = System.nanoTime();
+        assertTrue(userServiceA.updatePassword("test", "changed-654321"));
+        awaitWithinBudget(start, () -> received() > received, "节点 B 未收到改密变更");
+        assertNotNull(tryLogin("test", "changed-654321"), "改密后节点 B 应接受新密码");
+        assertNull(tryLogin("test", PASSWORD), "改密后节点 B 不应接受旧密码");
+
+        assertTrue(userServiceA.updatePassword("test", PASSWORD));
+        awaitWithinBudget(System.nanoTime(), () -> tryLogin("test", PASSWORD) != null, "恢复密码后节点 B 仍无法登录");
+    }
+
+    @Test
+    void createdUserCanLogInOnOtherNode() throws Exception {
+        // 先在节点 B 查询一次，留下"用户不存在"的查询结果
+        assertNull(tryLogin("created_user", PASSWORD));
+        double received = received();
+
+        long start = System.nanoTime();
+        userServiceA.createUser("created_user", PASSWORD, true);
+        awaitWithinBudget(start, () -> received() > received, "节点 B 未收到新建用户变更");
+        assertNotNull(tryLogin("created_user", PASSWORD), "新建用户后节点 B 应允许登录");
+    }
+
+    @Test
+    void importedUsersCanLogInOnOtherNode() throws Exception {
+        assertNull(tryLogin("imported_user", PASSWORD));
+        double received = received();
+
+        long start = System.nanoTime();
+        String csv = "username,password\nimported_user," + PASSWORD + "\n";
+        UserImportService.ImportReport report = nodeA.getBean(UserImportService.class)
+                .importUsers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+        assertTrue(report.isSuccess() && report.getInserted() == 1, "导入失败: " + report);
+        awaitWithinBudget(start, () -> received() > received, "节点 B 未收到导入用户变更");
+        assertNotNull(tryLogin("imported_user", PASSWORD), "导入用户后节点 B 应允许登录");
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, boolean primary) {
+        // 以命令行参数传入：builder.properties() 只是默认值，会被 application.yml 中的 server.port 等配置覆盖
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:invalidation-propagation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--logging.config=classpath:logback-spring.xml",
+                "--app.invalidation.enabled=true",
+                "--app.invalidation.node-id=" + nodeId,
+                "--app.invalidation.poll-interval-ms=" + POLL_INTERVAL_MS));
+        if (!primary) {
+            args.add("--spring.jpa.hibernate.ddl-auto=none");
+            args.add("--app.database.init-test-data=false");
+        }
+        return new SpringApplicationBuilder(LearnApplication.class)
+                .profiles("embedded", "prod")
+                .run(args.toArray(String[]::new));
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext context) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+        return "http://localhost:" + port + contextPath;
+    }
+
+    private static double received() {
+        return nodeB.getBean(MeterRegistry.class).get("app.invalidation.received").counter().count();
+    }
+
+    /**
+     * 等待条件在传播预算内成立
+     */
+    private static void awaitWithinBudget(long startNanos, ThrowingCondition condition, String message) throws Exception {
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(BUDGET_MS);
+        while (!condition.test()) {
+            assertTrue(System.nanoTime() < deadline, message + "（预算 " + BUDGET_MS + "ms）");
+            Thread.sleep(5);
+        }
+    }
+
+    private static String login(String username, String password) throws Exception {
+        String session = tryLogin(username, password);
+        assertNotNull(session, "节点 B 登录失败: " + username);
+        return session;
+    }
+
+    /**
+     * 在节点 B 上登录
+     *
+     * @return 成功时返回会话 Cookie（"JSESSIONID=..."），失败时返回 null
+     */
+    private static String tryLogin(String username, String password) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrlB + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || !response.body().contains("\"success\":true")) {
+            return null;
+        }
+        return sessionCookie(response);
+    }
+
+    private static boolean isAuthenticated(String session) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrlB + "/user-info"))
+                .header("Cookie", session)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body().contains("\"authenticated\":true");
+    }
+
+    private static String sessionCookie(HttpResponse<?> response) {
+        for (String setCookie : response.headers().allValues("set-cookie")) {
+            if (setCookie.startsWith(SESSION_COOKIE + "=")) {
+                int end = setCookie.indexOf(';');
+                return end < 0 ? setCookie : setCookie.substring(0, end);
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingCondition {
+
+        boolean test() throws Exception;
+    }
+}
@@ -0,0 +1,126 @@
+package com.lxq.learn.service;
+
+import com.lxq.learn.admission.AdmissionController;
+import com.lxq.learn.entity.User;
+import com.lxq.learn.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 启用用户查询的 single-flight 测试
+ * 仓库查询被阻塞在闸门上，保证并发请求都在查询进行中到达
+ */
+class UserServiceSingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ExecutorService executor;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findByUsernameAndEnabled("alice")).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.of(new User("alice", "hash", true));
+        });
+        // 准入上限为 2，远小于并发调用数：只有实际查询的线程占用名额，等待结果的线程不应被拒绝
+        AdmissionController admissionController = new AdmissionController(
+                meterRegistry, true, 2, 1, 2, 10, 2, 0.9, 10_000, 50, 250, 1);
+        userService = new UserService(userRepository, mock(EnabledUserCounter.class), event -> {},
+                admissionController, meterRegistry, 10_000L);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsHitTheDatabaseOnce() throws Exception {
+        List<Future<Optional<User>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> userService.findEnabledUserByUsername("alice")));
+        }
+
+        awaitCount("deduplicated", CALLERS - 1);
+        release.countDown();
+
+        Set<User> users = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<Optional<User>> result : results) {
+            users.add(result.get(10, TimeUnit.SECONDS).orElseThrow());
+        }
+        verify(userRepository, times(1)).findByUsernameAndEnabled("alice");
+        assertEquals(1.0, count("leader"));
+        assertEquals(CALLERS - 1, count("deduplicated"));
+        assertEquals(0.0, count("timeout"));
+        assertEquals(0.0, meterRegistry.get("app.admission.rejected").counter().count());
+        // 复用结果的线程拿到的是各自的游离副本
+        assertEquals(CALLERS, users.size());
+        users.forEach(user -> assertEquals("alice", user.getUsername()));
+    }
+
+    @Test
+    void lookupsAfterUserChangeDoNotJoinEarlierQuery() throws Exception {
+        Future<Optional<User>> beforeChange = executor.submit(() -> userService.findEnabledUserByUsername("alice"));
+        awaitCount("leader", 1);
+
+        userService.forgetInFlightLookup("alice");
+        Future<Optional<User>> afterChange = executor.submit(() -> userService.findEnabledUserByUsername("alice"));
+        awaitCount("leader", 2);
+        release.countDown();
+
+        User first = beforeChange.get(10, TimeUnit.SECONDS).orElseThrow();
+        User second = afterChange.get(10, TimeUnit.SECONDS).orElseThrow();
+        assertNotSame(first, second);
+        verify(userRepository, times(2)).findByUsernameAndEnabled("alice");
+        assertEquals(0.0, count("deduplicated"));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("app.users.lookup.single-flight").tag("result", result).counter().count();
+    }
+
+    private void awaitCount(String result, double expected) throws InterruptedException {
+        await(() -> count(result) >= expected);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待并发查询到达超时");
+            Thread.sleep(5);
+        }
+    }
+}